@@ -6,11 +6,63 @@ repositories {
   mavenCentral()
 }
 
+// The lexer's SIMD text scanning uses the incubating Vector API. It's kept
+// in its own source set, the only one compiled with the incubator module, so
+// the library builds and runs without it. TextScan only uses it when the
+// module is added at runtime, and falls back to scalar loops otherwise.
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
+val vector: SourceSet by sourceSets.creating {
+  compileClasspath += sourceSets.main.get().output
+}
+
+// Benchmark inputs come from the tests' CorpusGenerator
+val jmh: SourceSet by sourceSets.creating {
+  compileClasspath += sourceSets.main.get().output + vector.output + sourceSets.test.get().output
+  runtimeClasspath += sourceSets.main.get().output + vector.output + sourceSets.test.get().output
+}
+
+sourceSets.test {
+  runtimeClasspath += vector.output
+}
+
 dependencies {
   testImplementation("org.junit.jupiter:junit-jupiter-api:5.8.1")
   testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.8.1")
+
+  "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+  "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.named<JavaCompile>(vector.compileJavaTaskName) {
+  options.compilerArgs.addAll(vectorModule)
 }
 
+// The benchmarks call VectorScan directly
+tasks.named<JavaCompile>(jmh.compileJavaTaskName) {
+  options.compilerArgs.addAll(vectorModule)
+}
+
+tasks.jar {
+  from(vector.output)
+}
+
+// Tests run with the module, so the vector path is the one tested
 tasks.test {
   useJUnitPlatform()
-}
\ No newline at end of file
+  jvmArgs(vectorModule)
+}
+
+tasks.register<JavaExec>("jmh") {
+  group = "benchmark"
+  description = "Runs the JMH benchmarks, pass JMH arguments with -PjmhArgs=\"...\""
+
+  classpath = jmh.runtimeClasspath
+  mainClass.set("org.openjdk.jmh.Main")
+  jvmArgs(vectorModule)
+
+  val jmhArgs = project.findProperty("jmhArgs")?.toString()
+  if (!jmhArgs.isNullOrBlank()) {
+    args(jmhArgs.split(" "))
+  }
+}
@@ -0,0 +1,72 @@
+package me.jules.fxml;
+
+import java.io.StringWriter;
+import me.jules.fxml.parser.CharInput;
+import me.jules.fxml.parser.XmlWriter;
+
+/**
+ * Benchmark inputs, each shaped by {@link CorpusGenerator} to stress a
+ * different part of the lexer and parser. Generation is deterministic for a
+ * given size and seed, and only uses ASCII, so an input's length in chars is
+ * also its size in UTF-8 bytes.
+ */
+public enum Corpus {
+
+  /** Long runs of words with a few attributes, mostly body text scanning */
+  TEXT_HEAVY,
+
+  /** Elements with many attributes, quoted, unquoted and escaped, and no text */
+  ATTRIBUTE_HEAVY,
+
+  /** Chains of elements nested hundreds deep */
+  DEEP,
+
+  /** Tens of thousands of small siblings under the root */
+  WIDE,
+
+  /** Many small documents instead of one large one, per-document overhead */
+  SMALL_MANY;
+
+  // Size of each document in SMALL_MANY
+  static final int SMALL_SIZE = 256;
+
+  // Depth of each chain in DEEP
+  static final int CHAIN_DEPTH = 512;
+
+  /**
+   * Generates documents totalling at least {@code size} chars. Every corpus
+   * but {@link #SMALL_MANY} is a single document.
+   */
+  public String[] documents(int size, long seed) {
+    if (this != SMALL_MANY) {
+      return new String[] {generator(seed).size(size).generate()};
+    }
+
+    String[] docs = new String[Math.max(1, size / SMALL_SIZE)];
+
+    for (int i = 0; i < docs.length; i++) {
+      docs[i] = generator(seed + i).size(SMALL_SIZE).generate();
+    }
+
+    return docs;
+  }
+
+  /** XML with the same elements, attributes and text, for comparing against an XML parser */
+  public static String toXml(String fxml) {
+    StringWriter out = new StringWriter(fxml.length() + fxml.length() / 2);
+    XmlWriter.transcode(CharInput.of(fxml), out);
+    return out.toString();
+  }
+
+  private CorpusGenerator generator(long seed) {
+    CorpusGenerator generator = new CorpusGenerator(seed);
+
+    return switch (this) {
+      case TEXT_HEAVY -> generator.textRatio(0.9).maxTextWords(300).maxDepth(2).maxAttributes(1);
+      case ATTRIBUTE_HEAVY -> generator.textRatio(0).maxAttributes(12).maxDepth(3).leafRatio(0.8);
+      case DEEP -> generator.maxDepth(CHAIN_DEPTH).fanOut(1).leafRatio(0);
+      case WIDE -> generator.maxDepth(2).fanOut(1);
+      case SMALL_MANY -> generator;
+    };
+  }
+}
@@ -0,0 +1,141 @@
+package me.jules.fxml;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.parser.CharInput;
+import me.jules.fxml.parser.DefaultListener;
+import me.jules.fxml.parser.Parser;
+import me.jules.fxml.parser.ParserListener;
+import me.jules.fxml.parser.TokenStream;
+import me.jules.fxml.parser.TokenType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+// Each layer of the parser on every corpus, with the JDK's XML parser on the
+// same content as a baseline. An op is one pass over all of the corpus'
+// documents, the "bytes" counter gives the throughput in input bytes per
+// second. Run with -PjmhArgs="-prof gc" for bytes allocated per op
+// (gc.alloc.rate.norm).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ParseBenchmark {
+
+  @Param({"TEXT_HEAVY", "ATTRIBUTE_HEAVY", "DEEP", "WIDE", "SMALL_MANY"})
+  public Corpus corpus;
+
+  @Param({"1048576"})
+  public int size;
+
+  private String[] documents;
+  private String[] xmlDocuments;
+  private long totalLength;
+
+  private DocumentBuilder documentBuilder;
+  private DocumentBuilder xmlBuilder;
+
+  @Setup
+  public void setup() throws ParserConfigurationException {
+    documents = corpus.documents(size, 42L);
+    xmlDocuments = new String[documents.length];
+    totalLength = 0;
+
+    for (int i = 0; i < documents.length; i++) {
+      xmlDocuments[i] = Corpus.toXml(documents[i]);
+      totalLength += documents[i].length();
+    }
+
+    documentBuilder = Fxml.getDocumentBuilder();
+    xmlBuilder = Fxml.getDocumentBuilder();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Bytes {
+
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+      bytes = 0;
+    }
+  }
+
+  // Token types only, through the allocation free nextToken()
+  @Benchmark
+  public int lex(Bytes counter) {
+    int tokens = 0;
+
+    for (String doc : documents) {
+      CharInput in = CharInput.of(doc);
+      TokenStream stream = new TokenStream(in, new DefaultListener(in, null));
+
+      while (true) {
+        stream.skipWhitespace();
+        tokens++;
+
+        if (stream.nextToken() == TokenType.EOF.ordinal()) {
+          break;
+        }
+      }
+    }
+
+    counter.bytes += totalLength;
+    return tokens;
+  }
+
+  @Benchmark
+  public void parseDom(Bytes counter, Blackhole bh) {
+    for (String doc : documents) {
+      CharInput in = CharInput.of(doc);
+      ParserListener listener = new DefaultListener(in, null);
+      TokenStream stream = new TokenStream(in, listener);
+
+      bh.consume(new Parser(stream, listener, documentBuilder).parse());
+    }
+
+    counter.bytes += totalLength;
+  }
+
+  @Benchmark
+  public void fxmlParseDocument(Bytes counter, Blackhole bh) throws ParserConfigurationException {
+    for (String doc : documents) {
+      bh.consume(Fxml.parseDocument(doc));
+    }
+
+    counter.bytes += totalLength;
+  }
+
+  // Bytes are counted from the FXML input, so the numbers line up with the
+  // other benchmarks, the XML is larger
+  @Benchmark
+  public void xmlBaseline(Bytes counter, Blackhole bh) throws IOException, SAXException {
+    for (String xml : xmlDocuments) {
+      Document doc = xmlBuilder.parse(new InputSource(new StringReader(xml)));
+      bh.consume(doc);
+    }
+
+    counter.bytes += totalLength;
+  }
+}
@@ -0,0 +1,105 @@
+package me.jules.fxml.parser;
+
+import java.util.concurrent.TimeUnit;
+import me.jules.fxml.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Corpus.TEXT_HEAVY input, scanned with the Vector API and with the scalar
+// loop. lexTokens uses whatever TextScan picked, run it with
+// -jvmArgsAppend -Dfxml.vectorScan=false for the scalar lexer. lexString
+// lexes the same text from a String, which is always scanned with the
+// scalar loop, and scanString scans it the way StringInput does.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class TextScanBenchmark {
+
+  @Param({"1048576"})
+  public int size;
+
+  private char[] input;
+  private String string;
+
+  @Setup
+  public void setup() {
+    string = Corpus.TEXT_HEAVY.documents(size, 42L)[0];
+    input = string.toCharArray();
+  }
+
+  @Benchmark
+  public void lexTokens(Blackhole bh) {
+    lex(CharInput.of(input), bh);
+  }
+
+  @Benchmark
+  public void lexString(Blackhole bh) {
+    lex(CharInput.of(string), bh);
+  }
+
+  @Benchmark
+  public int scanVector() {
+    int i = 0;
+    int count = 0;
+
+    while (i < input.length) {
+      i = VectorScan.scanText(input, i, input.length) + 1;
+      count++;
+    }
+
+    return count;
+  }
+
+  @Benchmark
+  public int scanScalar() {
+    int i = 0;
+    int count = 0;
+
+    while (i < input.length) {
+      i = TextScan.scanTextScalar(input, i, input.length) + 1;
+      count++;
+    }
+
+    return count;
+  }
+
+  @Benchmark
+  public int scanString() {
+    int i = 0;
+    int count = 0;
+
+    while (i < string.length()) {
+      i = TextScan.scanText(string, i, string.length()) + 1;
+      count++;
+    }
+
+    return count;
+  }
+
+  private static void lex(CharInput in, Blackhole bh) {
+    TokenStream stream = new TokenStream(in, new DefaultListener(in, null));
+
+    while (true) {
+      stream.skipWhitespace();
+      Token t = stream.next();
+      bh.consume(t);
+
+      if (t.type() == TokenType.EOF) {
+        break;
+      }
+    }
+  }
+}
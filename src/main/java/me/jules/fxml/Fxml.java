@@ -1,25 +1,104 @@
 package me.jules.fxml;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.parser.CharInput;
 import me.jules.fxml.parser.DefaultListener;
-import me.jules.fxml.parser.Parser;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.FxmlParser;
+import me.jules.fxml.parser.FxmlStreamReader;
+import me.jules.fxml.parser.IncrementalDocument;
+import me.jules.fxml.parser.ParallelParser;
 import me.jules.fxml.parser.ParserListener;
 import me.jules.fxml.parser.TokenStream;
+import me.jules.fxml.tree.FxmlTree;
+import me.jules.fxml.tree.TreeBuilder;
 import org.w3c.dom.Document;
 import org.w3c.dom.bootstrap.DOMImplementationRegistry;
 
 public final class Fxml {
 
-  public static Document parseDocument(String in) throws ParserConfigurationException {
-    StringBuffer buffer = new StringBuffer(in);
-    ParserListener listener = new DefaultListener(buffer, null);
-    TokenStream stream = new TokenStream(buffer, listener);
+  private static final FxmlParser PARSER = FxmlParser.builder().build();
 
-    Parser parser = new Parser(stream, listener, getDocumentBuilder());
+  /** Shared parser engine used by the static parse methods */
+  public static FxmlParser parser() {
+    return PARSER;
+  }
+
+  public static Document parseDocument(CharSequence in) throws ParserConfigurationException {
+    return parseDocument(CharInput.of(in));
+  }
+
+  public static Document parseDocument(char[] in) throws ParserConfigurationException {
+    return parseDocument(CharInput.of(in));
+  }
+
+  public static Document parseDocument(Reader reader) throws ParserConfigurationException {
+    return parseDocument(CharInput.of(reader));
+  }
+
+  public static Document parseDocument(Path path)
+      throws IOException, ParserConfigurationException
+  {
+    return parseDocument(CharInput.map(path));
+  }
+
+  public static Document parseDocument(CharInput input) throws ParserConfigurationException {
+    return PARSER.parseDocument(input);
+  }
+
+  public static Document parseDocumentParallel(CharSequence in)
+      throws ParserConfigurationException
+  {
+    return parseDocumentParallel(CharInput.of(in));
+  }
+
+  public static Document parseDocumentParallel(Path path)
+      throws IOException, ParserConfigurationException
+  {
+    return parseDocumentParallel(CharInput.map(path));
+  }
+
+  /**
+   * Parses the children of the root element in parallel on the common
+   * {@link ForkJoinPool}, see {@link ParallelParser}
+   */
+  public static Document parseDocumentParallel(CharInput input)
+      throws ParserConfigurationException
+  {
+    return PARSER.parseDocumentParallel(input, ForkJoinPool.commonPool());
+  }
+
+  public static IncrementalDocument parseIncremental(CharSequence in)
+      throws ParserConfigurationException
+  {
+    return PARSER.parseIncremental(in);
+  }
+
+  public static void parse(CharInput input, DocumentHandler handler) {
+    PARSER.parse(input, handler);
+  }
+
+  public static FxmlTree parseTree(CharSequence in) {
+    return parseTree(CharInput.of(in));
+  }
+
+  public static FxmlTree parseTree(CharInput input) {
+    TreeBuilder builder = FxmlTree.builder();
+    parse(input, builder);
+    return builder.build();
+  }
+
+  public static FxmlStreamReader newReader(CharInput input) {
+    ParserListener listener = new DefaultListener(input, null);
+    TokenStream stream = new TokenStream(input, listener);
 
-    return parser.parse();
+    return new FxmlStreamReader(stream, listener);
   }
 
   public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
@@ -0,0 +1,238 @@
+package me.jules.fxml;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.parser.CharInput;
+import me.jules.fxml.tree.FxmlTree;
+import org.w3c.dom.Document;
+
+/**
+ * Cache of parsed documents, keyed by the hash of their content, or by
+ * their path, last modified time and size for files.
+ * <p>
+ * Documents are stored as {@link FxmlTree}s, which are immutable and handed
+ * out as is. {@link #getDocument(CharSequence)} builds a new DOM from the
+ * cached tree on every call, so callers are free to modify it.
+ * <p>
+ * The least recently used entries are evicted once either the entry count or
+ * the total weight goes over its limit. An entry's weight is the length of
+ * its source, in chars for content and in bytes for files.
+ * <p>
+ * Safe to use from any number of threads. Parsing happens outside the lock,
+ * so threads that miss on the same key at the same time may both parse it,
+ * the first one to finish wins.
+ */
+public class FxmlCache {
+
+  // Content is hashed in chunks of this many chars
+  static final int HASH_CHUNK = 4096;
+
+  private final int maxEntries;
+  private final long maxWeight;
+
+  // Access ordered, guarded by itself
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long weight = 0;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public FxmlCache(int maxEntries, long maxWeight) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("Max entries must be at least 1, was " + maxEntries);
+    }
+    if (maxWeight < 1) {
+      throw new IllegalArgumentException("Max weight must be at least 1, was " + maxWeight);
+    }
+
+    this.maxEntries = maxEntries;
+    this.maxWeight = maxWeight;
+  }
+
+  public FxmlTree getTree(CharSequence content) {
+    Objects.requireNonNull(content, "Null content");
+
+    ContentKey key = new ContentKey(sha256(content), content.length());
+    Entry entry = lookup(key, 0, 0);
+
+    if (entry != null) {
+      return entry.tree();
+    }
+
+    FxmlTree tree = Fxml.parseTree(content);
+    return insert(key, new Entry(tree, content.length(), 0, 0));
+  }
+
+  public FxmlTree getTree(Path path) throws IOException {
+    Path key = path.toAbsolutePath().normalize();
+    BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+
+    long modified = attrs.lastModifiedTime().toMillis();
+    long size = attrs.size();
+
+    Entry entry = lookup(key, modified, size);
+
+    if (entry != null) {
+      return entry.tree();
+    }
+
+    FxmlTree tree = Fxml.parseTree(CharInput.map(key));
+    return insert(key, new Entry(tree, size, modified, size));
+  }
+
+  public Document getDocument(CharSequence content) throws ParserConfigurationException {
+    return getTree(content).toDocument(Fxml.parser().newDocument());
+  }
+
+  public Document getDocument(Path path) throws IOException, ParserConfigurationException {
+    return getTree(path).toDocument(Fxml.parser().newDocument());
+  }
+
+  public Stats stats() {
+    synchronized (entries) {
+      return new Stats(
+          hits.sum(),
+          misses.sum(),
+          evictions.sum(),
+          entries.size(),
+          weight
+      );
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+      weight = 0;
+    }
+  }
+
+  public void invalidate(Path path) {
+    Path key = path.toAbsolutePath().normalize();
+
+    synchronized (entries) {
+      Entry removed = entries.remove(key);
+
+      if (removed != null) {
+        weight -= removed.weight();
+      }
+    }
+  }
+
+  // File entries only match if the file hasn't changed since it was parsed
+  private Entry lookup(Object key, long modified, long size) {
+    Entry entry;
+
+    synchronized (entries) {
+      entry = entries.get(key);
+
+      if (entry != null && (entry.modified() != modified || entry.size() != size)) {
+        entries.remove(key);
+        weight -= entry.weight();
+        entry = null;
+      }
+    }
+
+    if (entry == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+
+    return entry;
+  }
+
+  private FxmlTree insert(Object key, Entry entry) {
+    synchronized (entries) {
+      Entry existing = entries.putIfAbsent(key, entry);
+
+      if (existing != null) {
+        return existing.tree();
+      }
+
+      weight += entry.weight();
+
+      Iterator<Map.Entry<Object, Entry>> it = entries.entrySet().iterator();
+
+      // Never evicts the new entry, even if it's heavier than the limit on
+      // its own, so the caller's tree is still cached for the next call
+      while ((entries.size() > maxEntries || weight > maxWeight) && entries.size() > 1) {
+        Entry eldest = it.next().getValue();
+        it.remove();
+
+        weight -= eldest.weight();
+        evictions.increment();
+      }
+    }
+
+    return entry.tree();
+  }
+
+  private static byte[] sha256(CharSequence content) {
+    MessageDigest digest;
+
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException exc) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(exc);
+    }
+
+    byte[] buf = new byte[HASH_CHUNK * 2];
+    int len = content.length();
+
+    for (int start = 0; start < len; start += HASH_CHUNK) {
+      int end = Math.min(len, start + HASH_CHUNK);
+      int b = 0;
+
+      for (int i = start; i < end; i++) {
+        char ch = content.charAt(i);
+        buf[b++] = (byte) (ch >> 8);
+        buf[b++] = (byte) ch;
+      }
+
+      digest.update(buf, 0, b);
+    }
+
+    return digest.digest();
+  }
+
+  private record Entry(FxmlTree tree, long weight, long modified, long size) {
+
+  }
+
+  private record ContentKey(byte[] hash, int length) {
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ContentKey other
+          && length == other.length
+          && Arrays.equals(hash, other.hash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(hash);
+    }
+  }
+
+  public record Stats(long hits, long misses, long evictions, int entries, long weight) {
+
+    public double hitRate() {
+      long requests = hits + misses;
+      return requests == 0 ? 0 : (double) hits / requests;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package me.jules.fxml.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of compiled FXML files. All fixed size numbers are big endian.
+ * <pre>
+ * Header:
+ *   int    magic, "FXMB"
+ *   short  version
+ *   short  flags, always 0 for now
+ *   int    string count
+ *   int    string table length in bytes
+ *   int    node stream length in bytes
+ *
+ * String table, for each string:
+ *   varint length in bytes, then the chars, each encoded on its own as 1 to
+ *   3 bytes of UTF-8. Unpaired surrogates survive that, unlike real UTF-8.
+ *
+ * Node stream, in preorder:
+ *   ELEMENT    varint name, position, varint attribute count, then for
+ *              each attribute: varint name, varint value, position
+ *   TEXT       varint string, position
+ *   END        position
+ *
+ * Position:
+ *   varint offset, varint line, varint column
+ * </pre>
+ * Names, values and text are string table indices. Offsets and lines are
+ * stored as the zigzag encoded difference to the previous offset or line in
+ * the stream, columns as they are plus one, so -1 fits too.
+ */
+final class BinaryFormat {
+
+  static final int MAGIC = 0x46584D42;
+  static final int VERSION = 2;
+
+  static final int HEADER_LENGTH = 20;
+
+  static final byte ELEMENT = 1;
+  static final byte TEXT = 2;
+  static final byte END = 3;
+
+  private BinaryFormat() {
+
+  }
+
+  static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  static int readVarInt(ByteBuffer buf) {
+    int value = 0;
+    int shift = 0;
+
+    while (true) {
+      byte b = buf.get();
+      value |= (b & 0x7F) << shift;
+
+      if (b >= 0) {
+        return value;
+      }
+
+      shift += 7;
+
+      if (shift > 28) {
+        throw new IllegalArgumentException("Malformed varint at " + (buf.position() - 1));
+      }
+    }
+  }
+
+  static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  static void writeString(ByteArrayOutputStream out, String str) {
+    int length = 0;
+
+    for (int i = 0; i < str.length(); i++) {
+      char ch = str.charAt(i);
+      length += ch < 0x80 ? 1 : ch < 0x800 ? 2 : 3;
+    }
+
+    writeVarInt(out, length);
+
+    for (int i = 0; i < str.length(); i++) {
+      char ch = str.charAt(i);
+
+      if (ch < 0x80) {
+        out.write(ch);
+      } else if (ch < 0x800) {
+        out.write(0xC0 | (ch >> 6));
+        out.write(0x80 | (ch & 0x3F));
+      } else {
+        out.write(0xE0 | (ch >> 12));
+        out.write(0x80 | ((ch >> 6) & 0x3F));
+        out.write(0x80 | (ch & 0x3F));
+      }
+    }
+  }
+
+  static String readString(ByteBuffer buf, int position) {
+    buf.position(position);
+
+    int length = readVarInt(buf);
+    int end = buf.position() + length;
+
+    char[] chars = new char[length];
+    int count = 0;
+
+    while (buf.position() < end) {
+      int b = buf.get() & 0xFF;
+
+      if (b < 0x80) {
+        chars[count++] = (char) b;
+      } else if (b < 0xE0) {
+        chars[count++] = (char) (((b & 0x1F) << 6) | (buf.get() & 0x3F));
+      } else {
+        int b2 = buf.get() & 0x3F;
+        int b3 = buf.get() & 0x3F;
+        chars[count++] = (char) (((b & 0x0F) << 12) | (b2 << 6) | b3);
+      }
+    }
+
+    return new String(chars, 0, count);
+  }
+}
@@ -0,0 +1,187 @@
+package me.jules.fxml.binary;
+
+import static me.jules.fxml.binary.BinaryFormat.readVarInt;
+import static me.jules.fxml.binary.BinaryFormat.unzigzag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.DomBuilder;
+import me.jules.fxml.parser.Location;
+import org.w3c.dom.Document;
+
+/**
+ * A document compiled by {@link FxmlCompiler}, which can be replayed as
+ * parser events or turned into a DOM without lexing anything.
+ * <p>
+ * Strings are decoded the first time they're used. Instances can be read
+ * from any number of threads.
+ */
+public final class CompiledFxml {
+
+  private final ByteBuffer buffer;
+  private final int version;
+
+  private final int[] stringPositions;
+  private final String[] strings;
+
+  private final int nodesStart;
+  private final int nodesEnd;
+
+  private CompiledFxml(ByteBuffer buffer) {
+    this.buffer = buffer;
+
+    if (buffer.remaining() < BinaryFormat.HEADER_LENGTH
+        || buffer.getInt(0) != BinaryFormat.MAGIC
+    ) {
+      throw new IllegalArgumentException("Not a compiled FXML document");
+    }
+
+    this.version = buffer.getShort(4);
+
+    if (version != BinaryFormat.VERSION) {
+      throw new IllegalArgumentException(
+          "Unsupported compiled FXML version " + version
+              + ", expected " + BinaryFormat.VERSION
+      );
+    }
+
+    int stringCount = buffer.getInt(8);
+    int tableLength = buffer.getInt(12);
+    int nodesLength = buffer.getInt(16);
+
+    int tableStart = BinaryFormat.HEADER_LENGTH;
+    this.nodesStart = tableStart + tableLength;
+    this.nodesEnd = nodesStart + nodesLength;
+
+    if (stringCount < 0 || tableLength < 0 || nodesLength < 0 || nodesEnd > buffer.limit()) {
+      throw new IllegalArgumentException("Truncated compiled FXML document");
+    }
+
+    // Only the start of each string is found up front
+    ByteBuffer buf = buffer.duplicate();
+    buf.position(tableStart);
+
+    this.stringPositions = new int[stringCount];
+    for (int i = 0; i < stringCount; i++) {
+      stringPositions[i] = buf.position();
+      int length = readVarInt(buf);
+      buf.position(buf.position() + length);
+    }
+
+    this.strings = new String[stringCount];
+  }
+
+  /** Memory maps a compiled document */
+  public static CompiledFxml load(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * @throws IllegalArgumentException If the buffer doesn't hold a compiled
+   *                                  document of the supported version
+   */
+  public static CompiledFxml read(ByteBuffer buffer) {
+    return new CompiledFxml(buffer.slice());
+  }
+
+  public int version() {
+    return version;
+  }
+
+  public void replay(DocumentHandler handler) {
+    ByteBuffer buf = buffer.duplicate();
+    buf.position(nodesStart);
+
+    int[] open = new int[16];
+    int depth = 0;
+    Position position = new Position();
+
+    handler.startDocument();
+
+    while (buf.position() < nodesEnd) {
+      byte op = buf.get();
+
+      switch (op) {
+        case BinaryFormat.ELEMENT -> {
+          int name = readVarInt(buf);
+          handler.startElement(string(name), position.read(buf));
+
+          int attrCount = readVarInt(buf);
+          for (int i = 0; i < attrCount; i++) {
+            int attrName = readVarInt(buf);
+            int value = readVarInt(buf);
+
+            handler.attribute(string(attrName), string(value), position.read(buf));
+          }
+
+          if (depth == open.length) {
+            open = Arrays.copyOf(open, depth * 2);
+          }
+          open[depth++] = name;
+        }
+
+        case BinaryFormat.TEXT -> {
+          int text = readVarInt(buf);
+          handler.text(string(text), position.read(buf));
+        }
+
+        case BinaryFormat.END -> {
+          if (depth == 0) {
+            throw new IllegalArgumentException("Unbalanced element end at " + (buf.position() - 1));
+          }
+
+          handler.endElement(string(open[--depth]), position.read(buf));
+        }
+
+        default -> throw new IllegalArgumentException(
+            "Unknown node type " + op + " at " + (buf.position() - 1)
+        );
+      }
+    }
+
+    handler.endDocument();
+  }
+
+  public Document toDocument(Document document) {
+    replay(new DomBuilder(document));
+    return document;
+  }
+
+  public int stringCount() {
+    return strings.length;
+  }
+
+  public String string(int id) {
+    String str = strings[id];
+
+    // Racing threads decode the same string, either result is fine
+    if (str == null) {
+      str = BinaryFormat.readString(buffer.duplicate(), stringPositions[id]);
+      strings[id] = str;
+    }
+
+    return str;
+  }
+
+  // Offset and line are stored relative to the previous position
+  private static final class Position {
+
+    private int offset = 0;
+    private int line = 0;
+
+    Location read(ByteBuffer buf) {
+      offset += unzigzag(readVarInt(buf));
+      line += unzigzag(readVarInt(buf));
+      int column = readVarInt(buf) - 1;
+
+      return new Location(line, column, offset);
+    }
+  }
+}
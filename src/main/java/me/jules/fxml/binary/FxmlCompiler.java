@@ -0,0 +1,173 @@
+package me.jules.fxml.binary;
+
+import static me.jules.fxml.binary.BinaryFormat.writeString;
+import static me.jules.fxml.binary.BinaryFormat.writeVarInt;
+import static me.jules.fxml.binary.BinaryFormat.zigzag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import me.jules.fxml.Fxml;
+import me.jules.fxml.parser.CharInput;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.Location;
+
+/**
+ * Compiles parser events into the binary form read by {@link CompiledFxml}.
+ * Everything is buffered until {@link #endDocument()}, since the string
+ * table is written before the nodes.
+ */
+public class FxmlCompiler implements DocumentHandler {
+
+  private final OutputStream out;
+
+  private final Map<String, Integer> stringIds = new HashMap<>();
+  private final List<String> strings = new ArrayList<>();
+
+  private final ByteArrayOutputStream nodes = new ByteArrayOutputStream();
+
+  private int lastOffset = 0;
+  private int lastLine = 0;
+
+  // Attributes are written along with their element, so the element's
+  // attribute count is known up front
+  private int pendingName = -1;
+  private Location pendingLocation;
+  private final List<PendingAttribute> pendingAttributes = new ArrayList<>();
+
+  public FxmlCompiler(OutputStream out) {
+    this.out = Objects.requireNonNull(out, "Null output");
+  }
+
+  public static void compile(CharInput input, OutputStream out) throws IOException {
+    try {
+      Fxml.parse(input, new FxmlCompiler(out));
+    } catch (UncheckedIOException exc) {
+      throw exc.getCause();
+    }
+  }
+
+  public static void compile(Path source, Path target) throws IOException {
+    try (OutputStream out = Files.newOutputStream(target)) {
+      compile(CharInput.map(source), out);
+    }
+  }
+
+  @Override
+  public void startElement(String name, Location location) {
+    flushElement();
+
+    pendingName = stringId(name);
+    pendingLocation = location;
+  }
+
+  @Override
+  public void attribute(String name, String value, Location location) {
+    pendingAttributes.add(new PendingAttribute(stringId(name), stringId(value), location));
+  }
+
+  @Override
+  public void text(String text, Location location) {
+    flushElement();
+
+    nodes.write(BinaryFormat.TEXT);
+    writeVarInt(nodes, stringId(text));
+    writePosition(location);
+  }
+
+  @Override
+  public void endElement(String name, Location location) {
+    flushElement();
+
+    nodes.write(BinaryFormat.END);
+    writePosition(location);
+  }
+
+  @Override
+  public void endDocument() {
+    flushElement();
+
+    ByteArrayOutputStream table = new ByteArrayOutputStream();
+    for (String str : strings) {
+      writeString(table, str);
+    }
+
+    try {
+      DataOutputStream data = new DataOutputStream(out);
+
+      data.writeInt(BinaryFormat.MAGIC);
+      data.writeShort(BinaryFormat.VERSION);
+      data.writeShort(0);
+      data.writeInt(strings.size());
+      data.writeInt(table.size());
+      data.writeInt(nodes.size());
+
+      table.writeTo(data);
+      nodes.writeTo(data);
+
+      data.flush();
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private void flushElement() {
+    if (pendingName == -1) {
+      return;
+    }
+
+    nodes.write(BinaryFormat.ELEMENT);
+    writeVarInt(nodes, pendingName);
+    writePosition(pendingLocation);
+    writeVarInt(nodes, pendingAttributes.size());
+
+    for (PendingAttribute attr : pendingAttributes) {
+      writeVarInt(nodes, attr.name);
+      writeVarInt(nodes, attr.value);
+      writePosition(attr.location);
+    }
+
+    pendingName = -1;
+    pendingLocation = null;
+    pendingAttributes.clear();
+  }
+
+  private void writePosition(Location location) {
+    int offset = location.index();
+    int line = location.line();
+
+    writeVarInt(nodes, zigzag(offset - lastOffset));
+    writeVarInt(nodes, zigzag(line - lastLine));
+    writeVarInt(nodes, location.column() + 1);
+
+    lastOffset = offset;
+    lastLine = line;
+  }
+
+  private int stringId(String str) {
+    Integer id = stringIds.get(str);
+
+    if (id != null) {
+      return id;
+    }
+
+    int newId = strings.size();
+    strings.add(str);
+    stringIds.put(str, newId);
+
+    return newId;
+  }
+
+  private record PendingAttribute(int name, int value, Location location) {
+
+  }
+}
@@ -0,0 +1,106 @@
+package me.jules.fxml.parser;
+
+import static me.jules.fxml.parser.CharClass.isNameChar;
+import static me.jules.fxml.parser.CharClass.isNameStartChar;
+import static me.jules.fxml.parser.CharClass.isWhitespace;
+
+// Where body text ends and tags start. Shared by the lexer and the parallel
+// pre-scan, which have to agree on that exactly.
+final class BodyScanner {
+
+  // How far ahead body text and quoted strings are scanned at once
+  static final int SCAN_CHUNK = 1024;
+
+  // isTagStart() is known to be false for every index in this range. When a
+  // tag check fails, it fails for every index the lookahead scanned over too,
+  // so remembering that keeps text from being rescanned once per char.
+  private int noTagFrom = 0;
+  private int noTagUntil = 0;
+
+  void reset() {
+    noTagFrom = 0;
+    noTagUntil = 0;
+  }
+
+  // Whether ch, the char at index, starts a name followed by a { or a (
+  boolean isTagStart(CharInput input, int index, int ch) {
+    if (index >= noTagFrom && index < noTagUntil) {
+      return false;
+    }
+
+    if (!isNameStartChar(ch)) {
+      return false;
+    }
+
+    int c = input.next(index);
+    while (isNameChar(input.charAt(c))) {
+      c = input.next(c);
+    }
+
+    while (isWhitespace(input.charAt(c))) {
+      c = input.next(c);
+    }
+
+    int next = input.charAt(c);
+    if (next == '{' || next == '(') {
+      return true;
+    }
+
+    noTagFrom = index;
+    noTagUntil = c;
+    return false;
+  }
+
+  // How far body text from index on can be jumped over, given the stop char
+  // found at stop by CharInput.scanText(). Line breaks and the end of input
+  // are left to the caller's advance(), which records them in the line index.
+  static int plainEnd(CharInput input, int index, int stop) {
+    int stopChar = input.charAt(stop);
+
+    // The scan ended at its limit, possibly inside a word. Backing up to the
+    // word's start would leave the rest of it to be lexed char by char, so
+    // the word is followed to its end instead, it's plain text unless a { or
+    // a ( comes after it.
+    if (stop > index && !isStopChar(stopChar)) {
+      int end = stop;
+      while (isNameChar(input.charAt(end))) {
+        end = input.next(end);
+      }
+
+      int after = end;
+      while (isWhitespace(input.charAt(after))) {
+        after = input.next(after);
+      }
+
+      int next = input.charAt(after);
+      if (next != '{' && next != '(') {
+        int endChar = input.charAt(end);
+        return endChar == '\n' || endChar == '\r' || endChar == CharInput.EOF ? end - 1 : end;
+      }
+    }
+
+    int plain = stop;
+
+    // A tag name and the whitespace after it may run up to the stop char,
+    // or past the end of the scanned chunk
+    if (stopChar != '}' && stopChar != CharInput.EOF) {
+      while (plain > index && isWhitespace(input.charAt(plain - 1))) {
+        plain--;
+      }
+      while (plain > index && isNameChar(input.charAt(plain - 1))) {
+        plain--;
+      }
+    }
+
+    if (stopChar == '\n' || stopChar == '\r' || stopChar == CharInput.EOF) {
+      plain = Math.min(plain, stop - 1);
+    }
+
+    return plain;
+  }
+
+  // Chars CharInput.scanText() stops at, and the end of input
+  private static boolean isStopChar(int ch) {
+    return ch == '{' || ch == '(' || ch == '}' || ch == '\n' || ch == '\r' || ch == CharInput.EOF;
+  }
+}
@@ -0,0 +1,64 @@
+package me.jules.fxml.parser;
+
+final class CharArrayInput implements CharInput {
+
+  private final char[] chars;
+  private final int offset;
+  private final int length;
+
+  CharArrayInput(char[] chars, int offset, int length) {
+    this.chars = chars;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public int charAt(int index) {
+    if (index < 0 || index >= length) {
+      return EOF;
+    }
+
+    return chars[offset + index];
+  }
+
+  @Override
+  public String substring(int start, int end) {
+    int s = Math.max(0, start);
+    int e = Math.min(length, end);
+
+    if (s >= e) {
+      return "";
+    }
+
+    return new String(chars, offset + s, e - s);
+  }
+
+  @Override
+  public int scanText(int from, int to) {
+    int s = Math.max(0, from);
+    int e = Math.min(length, to);
+
+    if (s >= e) {
+      return s;
+    }
+
+    return TextScan.scanText(chars, offset + s, offset + e) - offset;
+  }
+
+  @Override
+  public int scanQuoted(int quote, int from, int to) {
+    int s = Math.max(0, from);
+    int e = Math.min(length, to);
+
+    if (s >= e) {
+      return s;
+    }
+
+    return TextScan.scanQuoted(chars, quote, offset + s, offset + e) - offset;
+  }
+
+  @Override
+  public String toString() {
+    return new String(chars, offset, length);
+  }
+}
@@ -0,0 +1,50 @@
+package me.jules.fxml.parser;
+
+import java.nio.CharBuffer;
+
+final class CharBufferInput implements CharInput {
+
+  private final CharBuffer buffer;
+  private final int length;
+
+  CharBufferInput(CharBuffer buffer) {
+    this.buffer = buffer;
+    this.length = buffer.remaining();
+  }
+
+  @Override
+  public int charAt(int index) {
+    if (index < 0 || index >= length) {
+      return EOF;
+    }
+
+    return buffer.get(index);
+  }
+
+  @Override
+  public String substring(int start, int end) {
+    int s = Math.max(0, start);
+    int e = Math.min(length, end);
+
+    if (s >= e) {
+      return "";
+    }
+
+    return buffer.subSequence(s, e).toString();
+  }
+
+  @Override
+  public int scanText(int from, int to) {
+    return TextScan.scanText(buffer, Math.max(0, from), Math.min(length, to));
+  }
+
+  @Override
+  public int scanQuoted(int quote, int from, int to) {
+    return TextScan.scanQuoted(buffer, quote, Math.max(0, from), Math.min(length, to));
+  }
+
+  @Override
+  public String toString() {
+    return buffer.toString();
+  }
+}
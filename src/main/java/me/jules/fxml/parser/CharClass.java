@@ -0,0 +1,87 @@
+package me.jules.fxml.parser;
+
+// Precomputed character classes for the lexer. Every BMP char has an entry
+// in the table, supplementary code points are never name or whitespace chars.
+final class CharClass {
+
+  static final int NAME_START = 0x1;
+  static final int NAME = 0x2;
+  static final int WHITESPACE = 0x4;
+  static final int UNQUOTED = 0x8;
+
+  private static final byte[] TABLE = new byte[0x10000];
+
+  static {
+    for (int ch = 0; ch < TABLE.length; ch++) {
+      int flags = 0;
+
+      if (defIsNameStartChar(ch)) {
+        flags |= NAME_START;
+      }
+      if (defIsNameChar(ch)) {
+        flags |= NAME;
+      }
+      if (Character.isWhitespace(ch)) {
+        flags |= WHITESPACE;
+      }
+      if (ch != '=' && ch != ')' && !Character.isWhitespace(ch)) {
+        flags |= UNQUOTED;
+      }
+
+      TABLE[ch] = (byte) flags;
+    }
+  }
+
+  private CharClass() {
+    throw new UnsupportedOperationException();
+  }
+
+  static int flags(int ch) {
+    if ((ch & ~0xFFFF) == 0) {
+      return TABLE[ch];
+    }
+
+    // EOF has no class, supplementary code points are only unquoted string chars
+    return ch < 0 ? 0 : UNQUOTED;
+  }
+
+  static boolean isNameStartChar(int ch) {
+    return (flags(ch) & NAME_START) != 0;
+  }
+
+  static boolean isNameChar(int ch) {
+    return (flags(ch) & NAME) != 0;
+  }
+
+  static boolean isWhitespace(int ch) {
+    return (flags(ch) & WHITESPACE) != 0;
+  }
+
+  static boolean isUnquotedStringChar(int ch) {
+    return (flags(ch) & UNQUOTED) != 0;
+  }
+
+  private static boolean defIsNameChar(int ch) {
+    return defIsNameStartChar(ch)
+        || ch == '-'
+        || ch == '.'
+        || (ch >= '0' && ch <= '9')
+        || ch == '\u00b7'
+        || (ch >= '\u0300' && ch <= '\u036f')
+        || (ch >= '\u203f' && ch <= '\u2040');
+  }
+
+  private static boolean defIsNameStartChar(int ch) {
+    return (ch >= 'a' && ch <= 'z')
+        || (ch >= 'A' && ch <= 'Z')
+        || ch == '_'
+        || ch == ':'
+        || ch == '@'
+        || ch == '$'
+        || (ch >= '\u2070' && ch <= '\u218F')
+        || (ch >= '\u2c00' && ch <= '\u2fef')
+        || (ch >= '\u3001' && ch <= '\ud7ff')
+        || (ch >= '\uf900' && ch <= '\ufdcf')
+        || (ch >= '\ufdf0' && ch <= '\ufffd');
+  }
+}
@@ -0,0 +1,191 @@
+package me.jules.fxml.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+public interface CharInput {
+
+  int EOF = -1;
+
+  static CharInput of(String string) {
+    Objects.requireNonNull(string, "Null string");
+    return new StringInput(string);
+  }
+
+  /**
+   * Creates an input over a char array, which isn't copied. Body text and
+   * quoted strings in arrays are scanned with the Vector API when the
+   * jdk.incubator.vector module is added to the JVM, other inputs are
+   * always scanned one char at a time.
+   *
+   * @param chars Chars
+   * @return Created input
+   */
+  static CharInput of(char[] chars) {
+    return of(chars, 0, chars.length);
+  }
+
+  static CharInput of(char[] chars, int offset, int length) {
+    Objects.requireNonNull(chars, "Null char array");
+    Objects.checkFromIndexSize(offset, length, chars.length);
+    return new CharArrayInput(chars, offset, length);
+  }
+
+  static CharInput of(CharBuffer buffer) {
+    Objects.requireNonNull(buffer, "Null buffer");
+
+    if (buffer.hasArray()) {
+      return of(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+
+    return new CharBufferInput(buffer.slice());
+  }
+
+  static CharInput of(CharSequence sequence) {
+    if (sequence instanceof String str) {
+      return of(str);
+    }
+    if (sequence instanceof CharBuffer buf) {
+      return of(buf);
+    }
+
+    Objects.requireNonNull(sequence, "Null sequence");
+    return new CharSequenceInput(sequence);
+  }
+
+  static CharInput of(Reader reader) {
+    return of(reader, ReaderInput.DEFAULT_WINDOW);
+  }
+
+  static CharInput of(Reader reader, int windowSize) {
+    Objects.requireNonNull(reader, "Null reader");
+    return new ReaderInput(reader, windowSize);
+  }
+
+  static CharInput of(ReadableByteChannel channel, Charset charset) {
+    Objects.requireNonNull(channel, "Null channel");
+    Objects.requireNonNull(charset, "Null charset");
+    return of(Channels.newReader(channel, charset.newDecoder(), -1));
+  }
+
+  /**
+   * Creates an input that lexes UTF-8 bytes directly. Indices of the returned
+   * input are byte offsets, {@link #charAt(int)} returns whole code points and
+   * bytes are only decoded into strings when a substring is requested.
+   *
+   * @param bytes UTF-8 bytes, from the buffer's position to its limit
+   * @return Created input
+   */
+  static CharInput ofUtf8(ByteBuffer bytes) {
+    Objects.requireNonNull(bytes, "Null buffer");
+    return new Utf8Input(bytes.slice());
+  }
+
+  /**
+   * Memory-maps a UTF-8 file and lexes it in place, see {@link #ofUtf8(ByteBuffer)}
+   *
+   * @param path File path
+   * @return Created input
+   * @throws IOException If the file couldn't be mapped
+   */
+  static CharInput map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File too large to map (" + size + " bytes): " + path);
+      }
+
+      return ofUtf8(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+  }
+
+  /**
+   * Gets the character at the specified index
+   * @param index Character index
+   * @return The character, or {@link #EOF} if the index is outside the input
+   *         or has already been released
+   */
+  int charAt(int index);
+
+  /**
+   * Gets a substring of the input. Both indices are clamped to the bounds of
+   * the input.
+   *
+   * @param start Start index, inclusive
+   * @param end End index, exclusive
+   * @return Substring
+   */
+  String substring(int start, int end);
+
+  /**
+   * Gets the index of the character following the one at the specified index.
+   * This is always {@code index + 1} except for inputs that index by bytes.
+   *
+   * @param index Character index
+   * @return Index of the next character
+   */
+  default int next(int index) {
+    return index + 1;
+  }
+
+  /**
+   * Whether indices of this input are char offsets, meaning {@link #next(int)}
+   * always returns {@code index + 1} and {@link #charAt(int)} returns UTF-16
+   * chars
+   *
+   * @return {@code false} for inputs that index by bytes
+   */
+  default boolean isCharIndexed() {
+    return true;
+  }
+
+  /**
+   * Skips over body text that needs no individual attention. Returns the
+   * first index in {@code [from, to)} holding one of {@code { ( }}, CR or LF,
+   * or {@code to} if there is none.
+   * <p>
+   * Inputs that index by anything other than chars, or can't scan cheaply,
+   * return {@code from}, which makes the lexer look at every char.
+   *
+   * @param from Start index, inclusive
+   * @param to End index, exclusive
+   * @return Index of the first stop char
+   */
+  default int scanText(int from, int to) {
+    return from;
+  }
+
+  /**
+   * Same as {@link #scanText(int, int)}, for the inside of a quoted string.
+   * Stops at the quote char, a backslash, CR or LF.
+   *
+   * @param quote Quote char that would end the string
+   * @param from Start index, inclusive
+   * @param to End index, exclusive
+   * @return Index of the first stop char
+   */
+  default int scanQuoted(int quote, int from, int to) {
+    return from;
+  }
+
+  /**
+   * Signals that characters before the specified index will not be read
+   * again. Streaming inputs use this to drop data from their window, in-memory
+   * inputs ignore it.
+   *
+   * @param index Index of the first character still needed
+   */
+  default void release(int index) {
+
+  }
+}
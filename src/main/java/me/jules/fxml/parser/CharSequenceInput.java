@@ -0,0 +1,46 @@
+package me.jules.fxml.parser;
+
+final class CharSequenceInput implements CharInput {
+
+  private final CharSequence sequence;
+
+  CharSequenceInput(CharSequence sequence) {
+    this.sequence = sequence;
+  }
+
+  @Override
+  public int charAt(int index) {
+    if (index < 0 || index >= sequence.length()) {
+      return EOF;
+    }
+
+    return sequence.charAt(index);
+  }
+
+  @Override
+  public String substring(int start, int end) {
+    int s = Math.max(0, start);
+    int e = Math.min(sequence.length(), end);
+
+    if (s >= e) {
+      return "";
+    }
+
+    return sequence.subSequence(s, e).toString();
+  }
+
+  @Override
+  public int scanText(int from, int to) {
+    return TextScan.scanText(sequence, Math.max(0, from), Math.min(sequence.length(), to));
+  }
+
+  @Override
+  public int scanQuoted(int quote, int from, int to) {
+    return TextScan.scanQuoted(sequence, quote, Math.max(0, from), Math.min(sequence.length(), to));
+  }
+
+  @Override
+  public String toString() {
+    return sequence.toString();
+  }
+}
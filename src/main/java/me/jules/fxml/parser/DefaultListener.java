@@ -1,22 +1,34 @@
 package me.jules.fxml.parser;
 
+import java.util.Objects;
+
 public class DefaultListener implements ParserListener {
 
   public static final String UNNAMED = "<unnamed source>";
 
-  private final StringBuffer input;
+  private final CharInput input;
   private final String sourceName;
+  private final DiagnosticSink warnings;
+
+  public DefaultListener(CharSequence input, String sourceName) {
+    this(CharInput.of(input), sourceName);
+  }
 
-  public DefaultListener(StringBuffer input, String sourceName) {
+  public DefaultListener(CharInput input, String sourceName) {
+    this(input, sourceName, DiagnosticSink.STDOUT);
+  }
+
+  public DefaultListener(CharInput input, String sourceName, DiagnosticSink warnings) {
     this.input = input;
     this.sourceName = sourceName;
+    this.warnings = Objects.requireNonNull(warnings, "Null warning sink");
   }
 
   @Override
   public void warn(Location location, String format, Object... args) {
-    String msg = format(input, location, format.formatted(args));
-    System.out.print(msg);
-    System.out.print("\n");
+    warnings.report(
+        new Diagnostic(Diagnostic.Severity.WARNING, location, format, args, input, sourceName)
+    );
   }
 
   @Override
@@ -36,24 +48,47 @@ public class DefaultListener implements ParserListener {
   }
 
 
-  public String format(StringBuffer input, Location location, String message) {
+  public String format(CharInput input, Location location, String message) {
+    return format(input, sourceName, location, message);
+  }
+
+  static String format(CharInput input, String sourceName, Location location, String message) {
     if (location == null) {
       return message;
     }
 
+    return formatLine(sourceLine(input, location), sourceName, location, message);
+  }
+
+  // Text of the line the location is on, without its line break. Empty if
+  // a streaming input has already dropped the start of the line
+  static String sourceLine(CharInput input, Location location) {
     int pos = location.index();
 
-    final int lineStart = findLineBoundary(input, pos, -1);
-    final int lineEnd = findLineBoundary(input, pos, 1);
+    int lineStart = findLineBoundary(input, pos, -1);
+
+    // Going backwards the scan only stops at EOF on released chars
+    if (lineStart > 0 && input.charAt(lineStart) == CharInput.EOF) {
+      return "";
+    }
+
+    int lineEnd = findLineBoundary(input, pos, 1);
+
+    return input.substring(lineStart, lineEnd)
+        .replace("\n", "")
+        .replace("\r", "");
+  }
+
+  static String formatLine(String context, String sourceName, Location location, String message) {
+    if (location == null) {
+      return message;
+    }
 
     final int lineNumber = location.line();
     final int column = location.column();
 
     String lineNumStr = String.valueOf(lineNumber);
     String linePad = " ".repeat(lineNumStr.length());
-    String context = input.substring(lineStart, lineEnd)
-        .replace("\n", "")
-        .replace("\r", "");
 
     StringBuilder builder = new StringBuilder();
 
@@ -92,19 +127,19 @@ public class DefaultListener implements ParserListener {
     return builder.toString();
   }
 
-  static int findLineBoundary(StringBuffer buf, int pos, int direction) {
+  static int findLineBoundary(CharInput input, int pos, int direction) {
     int p = pos + direction;
 
     while (true) {
-      if (p >= buf.length()) {
-        return buf.length();
+      int ch = input.charAt(p);
+
+      if (ch == CharInput.EOF && p > 0) {
+        return p;
       }
       if (p <= 0) {
         return 0;
       }
 
-      char ch = buf.charAt(p);
-
       if (ch == '\n' || ch == '\r') {
         if (direction == 1) {
           return p + 1;
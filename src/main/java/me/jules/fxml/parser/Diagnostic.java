@@ -0,0 +1,130 @@
+package me.jules.fxml.parser;
+
+import java.util.Objects;
+
+/**
+ * A warning or error reported while parsing. Only the format and its
+ * arguments are stored, the message and the source snippet are formatted
+ * when asked for, so reporting a diagnostic that's never looked at costs
+ * next to nothing.
+ * <p>
+ * Rendering reads the source line from the input. Streaming inputs may have
+ * dropped the start of the line by then, in which case the snippet is left
+ * empty rather than showing part of the line. Diagnostics
+ * returned by {@link FxmlParser#validate(CharInput)} and
+ * {@link FxmlParser#parseRecovering(CharInput, DocumentHandler)} have their
+ * line copied out instead, they don't keep the input alive.
+ */
+public final class Diagnostic {
+
+  public enum Severity {
+    WARNING,
+    ERROR
+  }
+
+  private final Severity severity;
+  private final Location location;
+  private final String format;
+  private final Object[] args;
+
+  private final CharInput input;
+  private final String sourceName;
+
+  // Source line copied out by detach(), null while the input is held
+  private final String line;
+
+  public Diagnostic(
+      Severity severity,
+      Location location,
+      String format,
+      Object[] args,
+      CharInput input,
+      String sourceName
+  ) {
+    this.severity = Objects.requireNonNull(severity, "Null severity");
+    this.location = location;
+    this.format = Objects.requireNonNull(format, "Null format");
+    this.args = args == null ? new Object[0] : args;
+    this.input = input;
+    this.sourceName = sourceName;
+    this.line = null;
+  }
+
+  private Diagnostic(Diagnostic diagnostic, Location location, String line) {
+    this.severity = diagnostic.severity;
+    this.location = location;
+    this.format = diagnostic.format;
+    this.args = diagnostic.args;
+    this.input = null;
+    this.sourceName = diagnostic.sourceName;
+    this.line = line;
+  }
+
+  /**
+   * Copy that no longer refers to the input, with the source line it points
+   * at copied out
+   */
+  Diagnostic detach() {
+    if (input == null || location == null) {
+      return input == null ? this : new Diagnostic(this, null, null);
+    }
+
+    return new Diagnostic(this, location, DefaultListener.sourceLine(input, location));
+  }
+
+  public Severity severity() {
+    return severity;
+  }
+
+  /** Where the problem is, or null if it isn't tied to a position */
+  public Location location() {
+    return location;
+  }
+
+  /** Input index of the problem, or -1 if there's no location */
+  public int offset() {
+    return location == null ? -1 : location.index();
+  }
+
+  public String format() {
+    return format;
+  }
+
+  public Object[] args() {
+    return args.clone();
+  }
+
+  public String sourceName() {
+    return sourceName;
+  }
+
+  public String message() {
+    return format.formatted(args);
+  }
+
+  /** Message along with the source line it points at, as thrown by {@link DefaultListener} */
+  public String render() {
+    if (line != null) {
+      return DefaultListener.formatLine(line, sourceName, location, message());
+    }
+    if (input == null) {
+      return message();
+    }
+
+    return DefaultListener.format(input, sourceName, location, message());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder()
+        .append(severity)
+        .append(' ')
+        .append(sourceName == null ? DefaultListener.UNNAMED : sourceName);
+
+    if (location != null) {
+      builder.append(':').append(location.line()).append(':').append(location.column());
+    }
+
+    return builder.append(": ").append(message()).toString();
+  }
+}
@@ -0,0 +1,62 @@
+package me.jules.fxml.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Listener that collects warnings and errors instead of printing or throwing
+ * them. Meant to be used with {@link Parser#setRecoverErrors(boolean)}, so a
+ * single parse reports every problem in a document.
+ */
+public class DiagnosticCollector implements ParserListener {
+
+  private final CharInput input;
+  private final String sourceName;
+
+  private final List<Diagnostic> diagnostics = new ArrayList<>();
+  private int errorCount = 0;
+
+  public DiagnosticCollector(CharInput input, String sourceName) {
+    this.input = input;
+    this.sourceName = sourceName;
+  }
+
+  @Override
+  public void warn(Location location, String format, Object... args) {
+    add(Diagnostic.Severity.WARNING, location, format, args);
+  }
+
+  @Override
+  public void warn(String format, Object... args) {
+    warn(null, format, args);
+  }
+
+  @Override
+  public void error(Location location, String format, Object... args) {
+    add(Diagnostic.Severity.ERROR, location, format, args);
+    errorCount++;
+  }
+
+  @Override
+  public void error(String format, Object... args) {
+    error(null, format, args);
+  }
+
+  private void add(Diagnostic.Severity severity, Location location, String format, Object[] args) {
+    diagnostics.add(new Diagnostic(severity, location, format, args, input, sourceName));
+  }
+
+  /** Everything reported so far, in the order it was reported */
+  public List<Diagnostic> getDiagnostics() {
+    return Collections.unmodifiableList(diagnostics);
+  }
+
+  public int getErrorCount() {
+    return errorCount;
+  }
+
+  public boolean hasErrors() {
+    return errorCount > 0;
+  }
+}
@@ -0,0 +1,24 @@
+package me.jules.fxml.parser;
+
+import java.io.PrintStream;
+
+/** Receives the warnings reported by a {@link DefaultListener} */
+@FunctionalInterface
+public interface DiagnosticSink {
+
+  /** Drops everything */
+  DiagnosticSink IGNORE = diagnostic -> { };
+
+  /** Prints to whatever {@link System#out} is at the time, see {@link #printing(PrintStream)} */
+  DiagnosticSink STDOUT = diagnostic -> printing(System.out).report(diagnostic);
+
+  void report(Diagnostic diagnostic);
+
+  /**
+   * Prints each diagnostic, fully rendered, with a single call, so output
+   * from several threads doesn't interleave within a diagnostic
+   */
+  static DiagnosticSink printing(PrintStream out) {
+    return diagnostic -> out.print(diagnostic.render() + "\n");
+  }
+}
@@ -0,0 +1,20 @@
+package me.jules.fxml.parser;
+
+public interface DocumentHandler {
+
+  default void startDocument() {
+
+  }
+
+  void startElement(String name, Location location);
+
+  void attribute(String name, String value, Location location);
+
+  void text(String text, Location location);
+
+  void endElement(String name, Location location);
+
+  default void endDocument() {
+
+  }
+}
@@ -0,0 +1,79 @@
+package me.jules.fxml.parser;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+public class DomBuilder implements DocumentHandler {
+
+  private final Document document;
+  private final boolean strictErrorChecking;
+  private Node current;
+
+  public DomBuilder(Document document) {
+    this(document, document);
+  }
+
+  /**
+   * Creates a builder that appends nodes to the specified parent, which must
+   * belong to the document
+   */
+  public DomBuilder(Document document, Node parent) {
+    this.document = document;
+    this.current = parent;
+    this.strictErrorChecking = document.getStrictErrorChecking();
+  }
+
+  public Document getDocument() {
+    return document;
+  }
+
+  // Element that was last started and hasn't ended yet, or the parent passed
+  // to the constructor
+  Node current() {
+    return current;
+  }
+
+  @Override
+  public void startElement(String name, Location location) {
+    Element element = document.createElement(name);
+    appendChild(current, element);
+    current = element;
+  }
+
+  @Override
+  public void attribute(String name, String value, Location location) {
+    ((Element) current).setAttribute(name, value);
+  }
+
+  @Override
+  public void text(String text, Location location) {
+    appendChild(current, document.createTextNode(text));
+  }
+
+  @Override
+  public void endElement(String name, Location location) {
+    current = current.getParentNode();
+  }
+
+  // With strict error checking, Xerces checks every inserted node against all
+  // of the parent's ancestors, which makes building deep documents quadratic.
+  // The nodes appended here are always new, so there's nothing to check.
+  void appendChild(Node parent, Node child) {
+    appendChild(document, strictErrorChecking, parent, child);
+  }
+
+  static void appendChild(Document document, boolean strict, Node parent, Node child) {
+    if (!strict) {
+      parent.appendChild(child);
+      return;
+    }
+
+    document.setStrictErrorChecking(false);
+    try {
+      parent.appendChild(child);
+    } finally {
+      document.setStrictErrorChecking(true);
+    }
+  }
+}
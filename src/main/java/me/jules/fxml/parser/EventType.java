@@ -0,0 +1,10 @@
+package me.jules.fxml.parser;
+
+public enum EventType {
+  START_ELEMENT,
+  ATTRIBUTE,
+  TEXT,
+  END_ELEMENT,
+  END_DOCUMENT,
+  ;
+}
@@ -0,0 +1,298 @@
+package me.jules.fxml.parser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+
+/**
+ * Parser engine that can be shared between threads and used for any number
+ * of documents.
+ * <p>
+ * Each thread gets its own lexer, parser and {@link DocumentBuilder}, which
+ * are reset between documents instead of being created again, so their
+ * buffers, scope stacks and symbol tables carry over from one document to
+ * the next, until a symbol table fills up and starts over. Nothing of a
+ * document is kept once its parse returns. A document parsed from inside a
+ * handler of another parse on the same thread gets a lexer and parser of
+ * its own.
+ * <p>
+ * Errors are thrown as soon as they're found, warnings go to the configured
+ * {@link DiagnosticSink}. {@link #validate(CharInput)} and
+ * {@link #parseRecovering(CharInput, DocumentHandler)} instead recover from
+ * errors and return all of them.
+ * <p>
+ * Instances are immutable, use {@link #builder()} to configure one.
+ */
+public final class FxmlParser {
+
+  private final DocumentBuilderFactory factory;
+  private final int maxDepth;
+  private final String sourceName;
+  private final SharedSymbolTable sharedSymbols;
+  private final DiagnosticSink warnings;
+
+  private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(this::newWorker);
+
+  private FxmlParser(Builder builder) {
+    this.factory = builder.factory == null
+        ? DocumentBuilderFactory.newInstance()
+        : builder.factory;
+
+    this.maxDepth = builder.maxDepth;
+    this.sourceName = builder.sourceName;
+    this.sharedSymbols = builder.sharedSymbols;
+    this.warnings = builder.warnings;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public String getSourceName() {
+    return sourceName;
+  }
+
+  public Document parseDocument(CharSequence in) throws ParserConfigurationException {
+    return parseDocument(CharInput.of(in));
+  }
+
+  public Document parseDocument(Path path) throws IOException, ParserConfigurationException {
+    return parseDocument(CharInput.map(path));
+  }
+
+  public Document parseDocument(CharInput input) throws ParserConfigurationException {
+    Worker worker = acquire();
+
+    try {
+      DomBuilder dom = new DomBuilder(worker.documentBuilder().newDocument());
+      worker.parse(input, dom);
+      return dom.getDocument();
+    } finally {
+      worker.busy = false;
+    }
+  }
+
+  public void parse(CharInput input, DocumentHandler handler) {
+    Worker worker = acquire();
+
+    try {
+      worker.parse(input, handler);
+    } finally {
+      worker.busy = false;
+    }
+  }
+
+  /**
+   * Parses the children of the root element in parallel on the pool, see
+   * {@link ParallelParser}. Errors are thrown, as by
+   * {@link #parseDocument(CharInput)}.
+   */
+  public Document parseDocumentParallel(CharInput input, ForkJoinPool pool)
+      throws ParserConfigurationException
+  {
+    ParserListener listener = new DefaultListener(input, sourceName, warnings);
+    ParallelParser parser = new ParallelParser(pool, workers.get().documentBuilder());
+    parser.setMaxDepth(maxDepth);
+
+    return parser.parse(input, listener);
+  }
+
+  /** See {@link IncrementalDocument} */
+  public IncrementalDocument parseIncremental(CharSequence in) throws ParserConfigurationException {
+    return IncrementalDocument.parse(in, workers.get().documentBuilder());
+  }
+
+  /** Creates an empty document with this thread's {@link DocumentBuilder} */
+  public Document newDocument() throws ParserConfigurationException {
+    return workers.get().documentBuilder().newDocument();
+  }
+
+  /**
+   * Parses in error recovery mode, see {@link Parser#setRecoverErrors(boolean)}.
+   * The handler gets whatever could be parsed, the errors and warnings are
+   * returned, detached from the input.
+   */
+  public List<Diagnostic> parseRecovering(CharInput input, DocumentHandler handler) {
+    DiagnosticCollector diagnostics = new DiagnosticCollector(input, sourceName);
+    Worker worker = acquire();
+
+    try {
+      worker.parse(input, handler, diagnostics, true);
+    } finally {
+      worker.busy = false;
+    }
+
+    List<Diagnostic> detached = new ArrayList<>(diagnostics.getDiagnostics().size());
+
+    for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+      detached.add(diagnostic.detach());
+    }
+
+    return Collections.unmodifiableList(detached);
+  }
+
+  /** Checks the input without building anything, returning every problem found */
+  public List<Diagnostic> validate(CharInput input) {
+    return parseRecovering(input, NO_OP);
+  }
+
+  public List<Diagnostic> validate(Path path) throws IOException {
+    return validate(CharInput.map(path));
+  }
+
+  private Worker acquire() {
+    Worker worker = workers.get();
+
+    if (worker.busy) {
+      worker = newWorker();
+    }
+
+    worker.busy = true;
+    return worker;
+  }
+
+  private Worker newWorker() {
+    return new Worker();
+  }
+
+  private static final DocumentHandler NO_OP = new DocumentHandler() {
+    @Override
+    public void startElement(String name, Location location) {
+
+    }
+
+    @Override
+    public void attribute(String name, String value, Location location) {
+
+    }
+
+    @Override
+    public void text(String text, Location location) {
+
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+
+    }
+  };
+
+  private final class Worker {
+
+    private final TokenStream stream;
+    private final Parser parser;
+    private DocumentBuilder documentBuilder;
+
+    // What the lexer and parser point at between documents
+    private final CharInput empty = CharInput.of("");
+    private final ParserListener idle = new DefaultListener(empty, sourceName, warnings);
+
+    private boolean busy = false;
+
+    Worker() {
+      this.stream = new TokenStream(empty, idle, new SymbolTable(sharedSymbols));
+      this.parser = new Parser(stream, idle);
+      this.parser.setMaxDepth(maxDepth);
+    }
+
+    // Created on first use, handler based parses never need one
+    DocumentBuilder documentBuilder() throws ParserConfigurationException {
+      if (documentBuilder == null) {
+        // Factories aren't required to be thread safe
+        synchronized (factory) {
+          documentBuilder = factory.newDocumentBuilder();
+        }
+      }
+
+      return documentBuilder;
+    }
+
+    void parse(CharInput input, DocumentHandler handler) {
+      parse(input, handler, new DefaultListener(input, sourceName, warnings), false);
+    }
+
+    void parse(CharInput input, DocumentHandler handler, ParserListener listener, boolean recover) {
+      // The table never evicts, once it's full only a fresh start lets the
+      // names of later documents in
+      SymbolTable symbols = stream.symbols();
+      if (symbols.isFull()) {
+        symbols.clear();
+      }
+
+      stream.reset(input, listener);
+      parser.reset(listener);
+      parser.setRecoverErrors(recover);
+
+      try {
+        parser.parse(handler);
+      } finally {
+        // An idle worker mustn't keep the last input, its line index, the
+        // listener or the handler alive
+        stream.reset(empty, idle);
+        parser.reset(idle);
+      }
+    }
+  }
+
+  public static final class Builder {
+
+    private DocumentBuilderFactory factory;
+    private int maxDepth = Parser.UNLIMITED_DEPTH;
+    private String sourceName;
+    private SharedSymbolTable sharedSymbols;
+    private DiagnosticSink warnings = DiagnosticSink.STDOUT;
+
+    private Builder() {
+
+    }
+
+    /** Factory for the DOM documents, the platform default if not set */
+    public Builder documentBuilderFactory(DocumentBuilderFactory factory) {
+      this.factory = Objects.requireNonNull(factory, "Null factory");
+      return this;
+    }
+
+    /** See {@link Parser#setMaxDepth(int)} */
+    public Builder maxDepth(int maxDepth) {
+      if (maxDepth < 1) {
+        throw new IllegalArgumentException("Max depth must be at least 1, was " + maxDepth);
+      }
+      this.maxDepth = maxDepth;
+      return this;
+    }
+
+    /** Name of the source shown in error messages */
+    public Builder sourceName(String sourceName) {
+      this.sourceName = sourceName;
+      return this;
+    }
+
+    /** Symbols shared between the symbol tables of each thread */
+    public Builder sharedSymbols(SharedSymbolTable sharedSymbols) {
+      this.sharedSymbols = sharedSymbols;
+      return this;
+    }
+
+    /** Where warnings go, standard output if not set */
+    public Builder warnings(DiagnosticSink warnings) {
+      this.warnings = Objects.requireNonNull(warnings, "Null warning sink");
+      return this;
+    }
+
+    public FxmlParser build() {
+      return new FxmlParser(this);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package me.jules.fxml.parser;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-style reader over a {@link Parser}. The parser pushes its events into
+ * a queue one piece of the document at a time, a text, an element's end, or
+ * an element's name and attributes, and the reader hands them out from
+ * there. Grammar, depth limit and error recovery are the parser's own.
+ */
+public class FxmlStreamReader {
+
+  private final Parser parser;
+
+  private final ArrayDeque<Event> queue = new ArrayDeque<>();
+  private final EventQueue handler = new EventQueue();
+
+  private boolean started = false;
+  private boolean finished = false;
+  private int depth = 0;
+
+  private EventType eventType;
+  private String name;
+  private String value;
+  private Location location;
+
+  public FxmlStreamReader(TokenStream stream, ParserListener listener) {
+    this(new Parser(stream, listener));
+  }
+
+  public FxmlStreamReader(Parser parser) {
+    this.parser = parser;
+  }
+
+  public boolean hasNext() {
+    return !finished;
+  }
+
+  public EventType next() {
+    if (finished) {
+      throw new NoSuchElementException("No more events");
+    }
+
+    if (!started) {
+      started = true;
+      parser.parseRoot(handler);
+    }
+
+    // Ends with END_DOCUMENT, so there's always an event once the parser is
+    // done
+    while (queue.isEmpty() && parser.parseNext()) {
+
+    }
+
+    Event event = queue.poll();
+
+    switch (event.type) {
+      case START_ELEMENT -> depth++;
+      case END_ELEMENT -> depth--;
+      case END_DOCUMENT -> finished = true;
+      default -> { }
+    }
+
+    this.eventType = event.type;
+    this.name = event.name;
+    this.value = event.value;
+    this.location = event.location;
+
+    return eventType;
+  }
+
+  public EventType nextTag() {
+    EventType type;
+
+    do {
+      type = next();
+    } while (type != EventType.START_ELEMENT
+        && type != EventType.END_ELEMENT
+        && type != EventType.END_DOCUMENT
+    );
+
+    return type;
+  }
+
+  public void skipElement() {
+    if (eventType != EventType.START_ELEMENT && eventType != EventType.ATTRIBUTE) {
+      throw new IllegalStateException("Not at the start of an element, current event: " + eventType);
+    }
+
+    int startDepth = depth;
+
+    while (true) {
+      EventType type = next();
+
+      if ((type == EventType.END_ELEMENT && depth < startDepth) || type == EventType.END_DOCUMENT) {
+        return;
+      }
+    }
+  }
+
+  public EventType getEventType() {
+    return eventType;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public Location getLocation() {
+    return location;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  private record Event(EventType type, String name, String value, Location location) {
+
+  }
+
+  private final class EventQueue implements DocumentHandler {
+
+    @Override
+    public void startElement(String name, Location location) {
+      add(EventType.START_ELEMENT, name, null, location);
+    }
+
+    @Override
+    public void attribute(String name, String value, Location location) {
+      add(EventType.ATTRIBUTE, name, value, location);
+    }
+
+    @Override
+    public void text(String text, Location location) {
+      add(EventType.TEXT, null, text, location);
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+      add(EventType.END_ELEMENT, name, null, location);
+    }
+
+    @Override
+    public void endDocument() {
+      add(EventType.END_DOCUMENT, null, null, parser.peek().start());
+    }
+
+    private void add(EventType type, String name, String value, Location location) {
+      queue.add(new Event(type, name, value, location));
+    }
+  }
+}
@@ -0,0 +1,431 @@
+package me.jules.fxml.parser;
+
+import static me.jules.fxml.parser.CharClass.isNameChar;
+import static me.jules.fxml.parser.CharClass.isNameStartChar;
+import static me.jules.fxml.parser.CharClass.isUnquotedStringChar;
+import static me.jules.fxml.parser.CharClass.isWhitespace;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes parser events, or a DOM, as FXML text, without keeping anything but
+ * the current nesting depth in memory.
+ * <p>
+ * Attribute values are quoted and escaped as needed. Body text can't be
+ * escaped in FXML, so text containing a closing brace or something the
+ * lexer would read as a tag start, like {@code name(} or {@code name {}, is
+ * rejected with an {@link IllegalArgumentException}, as is text directly
+ * followed by an element when it ends in a name. Whitespace only text
+ * is written only if it's next to other text, the parser drops it otherwise.
+ * <p>
+ * Pretty printing puts each element on its own line, except next to text,
+ * where any added whitespace would become part of the text.
+ */
+public class FxmlWriter implements DocumentHandler {
+
+  static final String INDENT = "  ";
+
+  // Where a tag start could be in progress at the end of the text written
+  // so far, see checkText()
+  private static final int NO_NAME = 0;
+  private static final int NAME = 1;
+  private static final int TAG_NAME = 2;
+  private static final int TAG_NAME_WHITESPACE = 3;
+
+  private final Appendable out;
+  private final boolean pretty;
+
+  private int depth = 0;
+
+  // Name written, attributes and body undecided
+  private boolean inHeader = false;
+  private boolean hasAttributes = false;
+
+  // An element with attributes ended without a body, its closing parenthesis
+  // is held back until it's known whether it needs an empty body
+  private boolean closeHeld = false;
+
+  // Whether the current body has had an element yet, and whether text was
+  // the last thing written
+  private boolean bodyHasElements = false;
+  private boolean lastWasText = false;
+
+  // Whitespace only text, written only if the text run turns out to have
+  // more than whitespace
+  private final StringBuilder pendingWhitespace = new StringBuilder();
+  private boolean runHasText = false;
+  private int textState = NO_NAME;
+
+  public FxmlWriter(Appendable out, boolean pretty) {
+    this.out = Objects.requireNonNull(out, "Null output");
+    this.pretty = pretty;
+  }
+
+  /** Writes a document, element or text node and everything below it */
+  public void write(Node node) {
+    if (node instanceof Document doc) {
+      startDocument();
+
+      if (doc.getDocumentElement() != null) {
+        write(doc.getDocumentElement());
+      }
+
+      endDocument();
+      return;
+    }
+
+    // Iterative, deep documents mustn't overflow the stack
+    Node top = node;
+    Node current = node;
+
+    while (current != null) {
+      boolean descend = false;
+
+      switch (current.getNodeType()) {
+        case Node.ELEMENT_NODE -> {
+          startElement(current.getNodeName(), null);
+
+          NamedNodeMap attrs = current.getAttributes();
+          for (int i = 0; i < attrs.getLength(); i++) {
+            Attr attr = (Attr) attrs.item(i);
+            attribute(attr.getName(), attr.getValue(), null);
+          }
+
+          descend = current.getFirstChild() != null;
+
+          if (!descend) {
+            endElement(current.getNodeName(), null);
+          }
+        }
+
+        case Node.TEXT_NODE, Node.CDATA_SECTION_NODE -> text(current.getNodeValue(), null);
+
+        // Comments and processing instructions have no FXML equivalent
+        default -> { }
+      }
+
+      if (descend) {
+        current = current.getFirstChild();
+        continue;
+      }
+
+      while (current != top && current.getNextSibling() == null) {
+        current = current.getParentNode();
+
+        if (current.getNodeType() == Node.ELEMENT_NODE) {
+          endElement(current.getNodeName(), null);
+        }
+      }
+
+      current = current == top ? null : current.getNextSibling();
+    }
+  }
+
+  @Override
+  public void startElement(String name, Location location) {
+    checkName(name);
+
+    // The element's name would continue a name the text ends with
+    if (runHasText && textState == TAG_NAME) {
+      throw new IllegalArgumentException(
+          "Text directly before element '" + name + "' can't end with a name"
+      );
+    }
+
+    openBody();
+    releaseHeld(false);
+    endTextRun();
+
+    if (pretty && depth > 0 && !lastWasText) {
+      newLine(depth);
+    }
+
+    append(name);
+
+    inHeader = true;
+    hasAttributes = false;
+    bodyHasElements = false;
+    lastWasText = false;
+  }
+
+  @Override
+  public void attribute(String name, String value, Location location) {
+    if (!inHeader) {
+      throw new IllegalStateException("Attribute '" + name + "' outside of an element start");
+    }
+
+    append(hasAttributes ? " " : "(");
+    hasAttributes = true;
+
+    writeValue(name);
+
+    if (!value.isEmpty()) {
+      append("=");
+      writeValue(value);
+    }
+  }
+
+  @Override
+  public void text(String text, Location location) {
+    if (!runHasText && text.isBlank()) {
+      pendingWhitespace.append(text);
+      return;
+    }
+
+    openBody();
+
+    if (!pendingWhitespace.isEmpty()) {
+      String whitespace = pendingWhitespace.toString();
+      pendingWhitespace.setLength(0);
+      writeText(whitespace);
+    }
+
+    writeText(text);
+  }
+
+  @Override
+  public void endElement(String name, Location location) {
+    releaseHeld(false);
+    endTextRun();
+
+    if (inHeader) {
+      inHeader = false;
+
+      if (hasAttributes) {
+        closeHeld = true;
+      } else {
+        append(pretty ? " {}" : "{}");
+      }
+    } else {
+      depth--;
+
+      if (pretty && bodyHasElements && !lastWasText) {
+        newLine(depth);
+      }
+
+      append("}");
+    }
+
+    // The parent's body now has an element in it
+    bodyHasElements = true;
+    lastWasText = false;
+  }
+
+  @Override
+  public void endDocument() {
+    releaseHeld(false);
+
+    if (pretty) {
+      append("\n");
+    }
+
+    if (out instanceof Flushable flushable) {
+      try {
+        flushable.flush();
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+    }
+  }
+
+  private void writeText(String text) {
+    // Text after a body-less element would lose its leading whitespace, and
+    // a leading brace would be read as the element's body
+    if (closeHeld && !text.isEmpty()) {
+      int first = text.charAt(0);
+      releaseHeld(isWhitespace(first) || first == '{');
+    }
+
+    checkText(text);
+    append(text);
+
+    runHasText = true;
+    lastWasText = true;
+  }
+
+  // Follows the lexer's tag start rule across the text run: a name with a
+  // name start char in it, optional whitespace, then a brace or parenthesis
+  private void checkText(String text) {
+    int state = textState;
+
+    for (int i = 0; i < text.length(); i++) {
+      char ch = text.charAt(i);
+
+      if (ch == '}') {
+        throw new IllegalArgumentException("Text can't contain '}': " + text);
+      }
+
+      if ((ch == '{' || ch == '(') && (state == TAG_NAME || state == TAG_NAME_WHITESPACE)) {
+        throw new IllegalArgumentException("Text would be read as an element start: " + text);
+      }
+
+      if (isNameChar(ch)) {
+        boolean start = isNameStartChar(ch);
+
+        if (state == NAME || state == TAG_NAME) {
+          state = state == TAG_NAME || start ? TAG_NAME : NAME;
+        } else {
+          state = start ? TAG_NAME : NAME;
+        }
+      } else if (isWhitespace(ch)) {
+        state = state == TAG_NAME || state == TAG_NAME_WHITESPACE
+            ? TAG_NAME_WHITESPACE
+            : NO_NAME;
+      } else {
+        state = NO_NAME;
+      }
+    }
+
+    textState = state;
+  }
+
+  private void endTextRun() {
+    pendingWhitespace.setLength(0);
+    runHasText = false;
+    textState = NO_NAME;
+  }
+
+  // Ends the element header with an opening brace, if there is one
+  private void openBody() {
+    if (!inHeader) {
+      return;
+    }
+
+    if (hasAttributes) {
+      append(")");
+    }
+
+    append(pretty ? " {" : "{");
+
+    inHeader = false;
+    depth++;
+    bodyHasElements = false;
+  }
+
+  private void releaseHeld(boolean emptyBody) {
+    if (!closeHeld) {
+      return;
+    }
+
+    closeHeld = false;
+    append(emptyBody ? "){}" : ")");
+  }
+
+  private void writeValue(String value) {
+    if (isPlainValue(value)) {
+      append(value);
+      return;
+    }
+
+    StringBuilder buf = new StringBuilder(value.length() + 2);
+    buf.append('"');
+
+    boolean afterUnicode = false;
+
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+
+      // The lexer reads hex digits after \\u for as long as there are any,
+      // so a hex digit right after a \\u escape has to be escaped as well
+      boolean hexAfterUnicode = afterUnicode && isHexChar(ch);
+      afterUnicode = false;
+
+      switch (ch) {
+        case '"' -> buf.append("\\\"");
+        case '\\' -> buf.append("\\\\");
+        case '\n' -> buf.append("\\n");
+        case '\r' -> buf.append("\\r");
+        case '\t' -> buf.append("\\t");
+
+        default -> {
+          boolean lone = Character.isSurrogate(ch) && !isPaired(value, i);
+
+          if (ch < 0x20 || ch == 0x7F || lone || hexAfterUnicode) {
+            buf.append(String.format("\\u%04x", (int) ch));
+            afterUnicode = true;
+          } else {
+            buf.append(ch);
+          }
+        }
+      }
+    }
+
+    buf.append('"');
+    append(buf);
+  }
+
+  // Values that are read back the same without quotes
+  private static boolean isPlainValue(String value) {
+    if (value.isEmpty()) {
+      return false;
+    }
+
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+
+      if (ch >= 0x80 || !isUnquotedStringChar(ch) || ch < 0x20) {
+        return false;
+      }
+
+      switch (ch) {
+        case '"', '\'', '`', '(', '{', '}', '\\' -> {
+          return false;
+        }
+        default -> { }
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean isHexChar(char ch) {
+    return (ch >= '0' && ch <= '9')
+        || (ch >= 'a' && ch <= 'f')
+        || (ch >= 'A' && ch <= 'F');
+  }
+
+  private static boolean isPaired(String str, int i) {
+    char ch = str.charAt(i);
+
+    if (Character.isHighSurrogate(ch)) {
+      return i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1));
+    }
+
+    return i > 0 && Character.isHighSurrogate(str.charAt(i - 1));
+  }
+
+  private static void checkName(String name) {
+    boolean valid = !name.isEmpty() && isNameStartChar(name.charAt(0));
+
+    for (int i = 1; i < name.length() && valid; i++) {
+      valid = isNameChar(name.charAt(i));
+    }
+
+    if (!valid) {
+      throw new IllegalArgumentException("Not a valid FXML element name: '" + name + "'");
+    }
+  }
+
+  private void newLine(int indent) {
+    append("\n");
+
+    for (int i = 0; i < indent; i++) {
+      append(INDENT);
+    }
+  }
+
+  private void append(CharSequence str) {
+    try {
+      out.append(str);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+}
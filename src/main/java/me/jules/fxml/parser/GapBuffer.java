@@ -0,0 +1,156 @@
+package me.jules.fxml.parser;
+
+// Editable text with a gap at the last edit point. An edit only moves the
+// chars between the previous edit and this one, so a run of nearby edits,
+// like typing, costs about the size of the edits and not of the text.
+final class GapBuffer implements CharInput {
+
+  static final int MIN_GAP = 64;
+
+  private char[] chars;
+  private int gapStart;
+  private int gapEnd;
+
+  GapBuffer(CharSequence text) {
+    int length = text.length();
+
+    chars = new char[length + MIN_GAP];
+    for (int i = 0; i < length; i++) {
+      chars[i] = text.charAt(i);
+    }
+
+    gapStart = length;
+    gapEnd = chars.length;
+  }
+
+  int length() {
+    return chars.length - (gapEnd - gapStart);
+  }
+
+  void replace(int offset, int removedLength, CharSequence inserted) {
+    moveGap(offset);
+    gapEnd += removedLength;
+
+    int n = inserted.length();
+    if (n > gapEnd - gapStart) {
+      grow(n);
+    }
+
+    for (int i = 0; i < n; i++) {
+      chars[gapStart + i] = inserted.charAt(i);
+    }
+
+    gapStart += n;
+  }
+
+  private void moveGap(int index) {
+    if (index < gapStart) {
+      int n = gapStart - index;
+      System.arraycopy(chars, index, chars, gapEnd - n, n);
+      gapStart = index;
+      gapEnd -= n;
+    } else if (index > gapStart) {
+      int n = index - gapStart;
+      System.arraycopy(chars, gapEnd, chars, gapStart, n);
+      gapStart += n;
+      gapEnd += n;
+    }
+  }
+
+  private void grow(int needed) {
+    int capacity = Math.max(chars.length * 2, length() + needed + MIN_GAP);
+    int tail = chars.length - gapEnd;
+
+    char[] grown = new char[capacity];
+    System.arraycopy(chars, 0, grown, 0, gapStart);
+    System.arraycopy(chars, gapEnd, grown, capacity - tail, tail);
+
+    chars = grown;
+    gapEnd = capacity - tail;
+  }
+
+  @Override
+  public int charAt(int index) {
+    if (index < 0 || index >= length()) {
+      return EOF;
+    }
+
+    return index < gapStart ? chars[index] : chars[index + gapEnd - gapStart];
+  }
+
+  @Override
+  public String substring(int start, int end) {
+    int s = Math.max(0, start);
+    int e = Math.min(length(), end);
+
+    if (s >= e) {
+      return "";
+    }
+
+    int gap = gapEnd - gapStart;
+
+    if (e <= gapStart) {
+      return new String(chars, s, e - s);
+    }
+    if (s >= gapStart) {
+      return new String(chars, s + gap, e - s);
+    }
+
+    StringBuilder builder = new StringBuilder(e - s);
+    builder.append(chars, s, gapStart - s);
+    builder.append(chars, gapEnd, e - gapStart);
+    return builder.toString();
+  }
+
+  @Override
+  public int scanText(int from, int to) {
+    int s = Math.max(0, from);
+    int e = Math.min(length(), to);
+
+    if (s >= e) {
+      return s;
+    }
+
+    // Before the gap, then after it if nothing was found
+    if (s < gapStart) {
+      int beforeGap = Math.min(e, gapStart);
+      int found = TextScan.scanText(chars, s, beforeGap);
+
+      if (found < beforeGap || beforeGap == e) {
+        return found;
+      }
+      s = gapStart;
+    }
+
+    int gap = gapEnd - gapStart;
+    return TextScan.scanText(chars, s + gap, e + gap) - gap;
+  }
+
+  @Override
+  public int scanQuoted(int quote, int from, int to) {
+    int s = Math.max(0, from);
+    int e = Math.min(length(), to);
+
+    if (s >= e) {
+      return s;
+    }
+
+    if (s < gapStart) {
+      int beforeGap = Math.min(e, gapStart);
+      int found = TextScan.scanQuoted(chars, quote, s, beforeGap);
+
+      if (found < beforeGap || beforeGap == e) {
+        return found;
+      }
+      s = gapStart;
+    }
+
+    int gap = gapEnd - gapStart;
+    return TextScan.scanQuoted(chars, quote, s + gap, e + gap) - gap;
+  }
+
+  @Override
+  public String toString() {
+    return substring(0, length());
+  }
+}
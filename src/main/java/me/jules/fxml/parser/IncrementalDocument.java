@@ -0,0 +1,445 @@
+package me.jules.fxml.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import javax.xml.parsers.DocumentBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * A parsed document that can be edited as text and re-parsed incrementally,
+ * for editors and live reloading.
+ * <p>
+ * Every element's source range is remembered. An edit only re-parses the
+ * innermost element that contains it, and swaps the new element into the
+ * DOM in place of the old one, the rest of the DOM is left untouched. If the
+ * edit changes the document's structure beyond that element, its outermost
+ * ancestor below the root is tried next, and finally the whole document.
+ * <p>
+ * Element ranges are kept relative to their parent, so an edit only updates
+ * the elements it is inside of, and the text is kept in a gap buffer, so
+ * nearby edits don't copy it. Apart from re-parsing, an edit costs about the
+ * depth of the edited element, not the size of the document.
+ * <p>
+ * The {@link Document} returned by {@link #getDocument()} stays the same
+ * across edits and is updated in place. Instances aren't thread safe.
+ */
+public class IncrementalDocument {
+
+  private final Document document;
+
+  private final GapBuffer text;
+
+  // Created on demand, null after an edit
+  private String string;
+
+  private Span root;
+  private int rootStart;
+
+  private int lastReparseStart;
+  private int lastReparseEnd;
+
+  private IncrementalDocument(DocumentBuilder builder, CharSequence text) {
+    this.document = builder.newDocument();
+    this.text = new GapBuffer(text);
+  }
+
+  public static IncrementalDocument parse(CharSequence text, DocumentBuilder builder) {
+    Objects.requireNonNull(text, "Null text");
+    Objects.requireNonNull(builder, "Null builder");
+
+    IncrementalDocument doc = new IncrementalDocument(builder, text);
+    doc.parseFully();
+    return doc;
+  }
+
+  public Document getDocument() {
+    return document;
+  }
+
+  public String getText() {
+    if (string == null) {
+      string = text.toString();
+    }
+    return string;
+  }
+
+  /** Start of the source range that the last parse or edit re-parsed */
+  public int getLastReparseStart() {
+    return lastReparseStart;
+  }
+
+  /** End of the source range that the last parse or edit re-parsed */
+  public int getLastReparseEnd() {
+    return lastReparseEnd;
+  }
+
+  /**
+   * Applies a text edit and updates the document
+   *
+   * @param offset Index of the first changed char
+   * @param removedLength Number of chars removed at the offset
+   * @param insertedText Text inserted at the offset
+   *
+   * @throws IndexOutOfBoundsException If the removed range isn't inside the
+   *                                   current text
+   * @throws RuntimeException If the edited text doesn't parse, thrown by the
+   *                          parser's listener. The document is left as it
+   *                          was, but the text is updated, and edits
+   *                          re-parse the whole text until it parses again.
+   */
+  public void edit(int offset, int removedLength, CharSequence insertedText) {
+    Objects.checkFromIndexSize(offset, removedLength, text.length());
+    Objects.requireNonNull(insertedText, "Null inserted text");
+
+    text.replace(offset, removedLength, insertedText);
+    string = null;
+
+    int delta = insertedText.length() - removedLength;
+    int editEnd = offset + removedLength;
+
+    // After a failed full parse, the spans no longer match the text
+    Span innermost = root == null ? null : innermost(offset, editEnd);
+
+    if (innermost != null && reparse(innermost, delta)) {
+      return;
+    }
+
+    // Second try, the outermost ancestor below the root
+    Span outermost = innermost;
+    while (outermost != null && outermost.parent != root) {
+      outermost = outermost.parent;
+    }
+
+    if (outermost != null && outermost != innermost && reparse(outermost, delta)) {
+      return;
+    }
+
+    parseFully();
+  }
+
+  // Innermost element below the root whose source range contains the edit,
+  // without it touching the element's first or last char, which would change
+  // where the element starts or ends
+  private Span innermost(int start, int end) {
+    Span span = root;
+    int spanStart = rootStart;
+    Span found = null;
+
+    while (true) {
+      int i = span.childBefore(start - spanStart);
+
+      if (i < 0) {
+        return found;
+      }
+
+      Span child = span.children[i];
+      int childStart = spanStart + span.childStart(i);
+
+      if (start <= childStart || end > childStart + child.length - 1) {
+        return found;
+      }
+
+      found = child;
+      span = child;
+      spanStart = childStart;
+    }
+  }
+
+  private int startOf(Span span) {
+    int start = rootStart;
+
+    for (Span parent = span.parent; parent != null; parent = parent.parent) {
+      start += parent.childStart(span.index);
+      span = parent;
+    }
+
+    return start;
+  }
+
+  // Parses the edited source range of the span on its own. This only works
+  // if the range still holds exactly one element.
+  private boolean reparse(Span old, int delta) {
+    int start = startOf(old);
+    int end = start + old.length + delta;
+
+    SliceInput slice = new SliceInput(text, start, end);
+    TokenStream stream = new TokenStream(slice, FAIL_FAST, new SymbolTable(), new LineIndex(slice), start);
+
+    DocumentFragment fragment = document.createDocumentFragment();
+    Span container = new Span(null, null, start);
+    SpanRecorder recorder = new SpanRecorder(new DomBuilder(document, fragment), text, container);
+
+    try {
+      new Parser(stream, FAIL_FAST).parseContent(recorder, 0);
+    } catch (RuntimeException exc) {
+      // Includes failures other than ReparseFailed, like a stray closing
+      // brace emptying the lexer's scope stack. Whatever the cause, the
+      // larger range gets it reported properly.
+      return false;
+    }
+
+    List<Span> recorded = container.recorded;
+
+    if (recorded == null
+        || recorded.size() != 1
+        || fragment.getChildNodes().getLength() != 1
+        || recorded.get(0).start != start
+        || recorded.get(0).length != end - start
+    ) {
+      return false;
+    }
+
+    Span replacement = recorded.get(0);
+    Span parent = old.parent;
+    int index = old.index;
+
+    Node parentNode = old.element.getParentNode();
+    parentNode.replaceChild(replacement.element, old.element);
+
+    replacement.parent = parent;
+    replacement.index = index;
+    parent.children[index] = replacement;
+
+    // Move the later siblings at each level by the change in length, every
+    // other range is relative to one of them and stays as it is
+    Span child = replacement;
+    while (parent != null) {
+      parent.shiftChildren(child.index + 1, delta);
+      parent.length += delta;
+
+      child = parent;
+      parent = parent.parent;
+    }
+
+    lastReparseStart = start;
+    lastReparseEnd = end;
+    return true;
+  }
+
+  private void parseFully() {
+    // Stays null if the parse throws, so the next edit parses fully again
+    root = null;
+
+    ParserListener listener = new DefaultListener(text, null);
+    TokenStream stream = new TokenStream(text, listener);
+
+    // Built in the same document, adopting a deep tree would overflow the
+    // stack
+    DocumentFragment fragment = document.createDocumentFragment();
+    Span container = new Span(null, null, 0);
+    SpanRecorder recorder = new SpanRecorder(new DomBuilder(document, fragment), text, container);
+
+    new Parser(stream, listener).parse(recorder);
+
+    Element oldRoot = document.getDocumentElement();
+    if (oldRoot != null) {
+      document.removeChild(oldRoot);
+    }
+
+    Span newRoot = container.recorded == null ? null : container.recorded.get(0);
+    if (newRoot != null) {
+      newRoot.parent = null;
+      document.appendChild(newRoot.element);
+      rootStart = newRoot.start;
+    }
+
+    root = newRoot;
+    lastReparseStart = 0;
+    lastReparseEnd = text.length();
+  }
+
+  // Source range of an element, ranges of elements with a body include the
+  // closing brace. Children's start offsets are relative to their parent's
+  // start, and kept in a Fenwick tree of the gaps between them, so shifting
+  // every child after an index and finding the child at an offset both take
+  // O(log children).
+  static final class Span {
+
+    static final Span[] NO_CHILDREN = new Span[0];
+
+    Span parent;
+    int index;
+    final Element element;
+
+    int length;
+    Span[] children = NO_CHILDREN;
+
+    // 1-based, entry i covers the gaps before children (i - lowbit(i), i]
+    int[] offsets;
+
+    // Only used while recording, start is absolute
+    int start;
+    boolean hasText;
+    List<Span> recorded;
+
+    Span(Span parent, Element element, int start) {
+      this.parent = parent;
+      this.element = element;
+      this.start = start;
+    }
+
+    void add(Span child) {
+      if (recorded == null) {
+        recorded = new ArrayList<>();
+      }
+      recorded.add(child);
+    }
+
+    // Called when the element ends, once the children's positions are known
+    void finish(int end) {
+      length = end - start;
+
+      if (recorded == null) {
+        return;
+      }
+
+      int n = recorded.size();
+      children = recorded.toArray(NO_CHILDREN);
+      offsets = new int[n + 1];
+
+      int previous = start;
+      for (int i = 0; i < n; i++) {
+        Span child = children[i];
+        child.index = i;
+        offsets[i + 1] = child.start - previous;
+        previous = child.start;
+      }
+
+      for (int i = 1; i <= n; i++) {
+        int j = i + (i & -i);
+        if (j <= n) {
+          offsets[j] += offsets[i];
+        }
+      }
+
+      recorded = null;
+    }
+
+    int childStart(int index) {
+      int sum = 0;
+      for (int i = index + 1; i > 0; i -= i & -i) {
+        sum += offsets[i];
+      }
+      return sum;
+    }
+
+    void shiftChildren(int from, int delta) {
+      if (offsets == null) {
+        return;
+      }
+      for (int i = from + 1; i < offsets.length; i += i & -i) {
+        offsets[i] += delta;
+      }
+    }
+
+    // Index of the last child starting at or before the relative offset, -1
+    // if there is none
+    int childBefore(int offset) {
+      int n = children.length;
+      int pos = 0;
+
+      for (int step = Integer.highestOneBit(n); step > 0; step >>= 1) {
+        int next = pos + step;
+
+        if (next <= n && offsets[next] <= offset) {
+          pos = next;
+          offset -= offsets[next];
+        }
+      }
+
+      return pos - 1;
+    }
+  }
+
+  // Builds the DOM and records the source range of each element
+  private static final class SpanRecorder implements DocumentHandler {
+
+    private final DomBuilder dom;
+    private final CharInput text;
+    private Span current;
+
+    SpanRecorder(DomBuilder dom, CharInput text, Span container) {
+      this.dom = dom;
+      this.text = text;
+      this.current = container;
+    }
+
+    @Override
+    public void startElement(String name, Location location) {
+      dom.startElement(name, location);
+
+      Span span = new Span(current, (Element) dom.current(), location.index());
+      current.add(span);
+      current = span;
+    }
+
+    @Override
+    public void attribute(String name, String value, Location location) {
+      dom.attribute(name, value, location);
+    }
+
+    @Override
+    public void text(String text, Location location) {
+      dom.text(text, location);
+      current.hasText = true;
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+      dom.endElement(name, location);
+
+      // Elements with a body end at their closing brace, others right after
+      // their attributes' closing parenthesis. When a body-less element is
+      // directly followed by its parent's closing brace, both are true, but
+      // a body that ends in a parenthesis can't be empty.
+      int index = location.index();
+      boolean brace = text.charAt(index) == '}';
+      boolean paren = text.charAt(index - 1) == ')';
+
+      if (brace && paren) {
+        brace = current.hasText || current.recorded != null;
+      }
+
+      current.finish(brace ? index + 1 : index);
+      current = current.parent;
+    }
+  }
+
+  private static final ParserListener FAIL_FAST = new ParserListener() {
+    @Override
+    public void warn(Location location, String format, Object... args) {
+
+    }
+
+    @Override
+    public void warn(String format, Object... args) {
+
+    }
+
+    @Override
+    public void error(Location location, String format, Object... args) {
+      throw ReparseFailed.INSTANCE;
+    }
+
+    @Override
+    public void error(String format, Object... args) {
+      throw ReparseFailed.INSTANCE;
+    }
+  };
+
+  // Thrown to abandon a partial re-parse, the document is then re-parsed
+  // with a larger range where any actual error gets reported properly
+  @SuppressWarnings("serial")
+  private static final class ReparseFailed extends RuntimeException {
+
+    static final ReparseFailed INSTANCE = new ReparseFailed();
+
+    private ReparseFailed() {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package me.jules.fxml.parser;
+
+import java.util.Arrays;
+
+/**
+ * Start offsets of every line the lexer has passed, so positions can be kept
+ * as a single input index and turned into a line and column by binary search
+ * only when a {@link Location} is created for them.
+ * <p>
+ * Lines start at their line break char, which is column 0, the first line
+ * starts at index 0. A CRLF pair starts its line at the LF.
+ */
+final class LineIndex {
+
+  private final CharInput input;
+
+  private int[] breaks = new int[64];
+  private int count = 0;
+
+  // Index the lexer found the end of input at, -1 if not reached yet
+  private int end = -1;
+
+  // Set once the index has been built up front and is shared between lexers
+  private boolean frozen = false;
+
+  // Index and column of the last column counted on inputs that aren't char
+  // indexed, packed so threads sharing a frozen index see both or neither.
+  // Lookups in input order carry on from there instead of the line start.
+  private volatile long lastColumn = -1;
+
+  LineIndex(CharInput input) {
+    this.input = input;
+  }
+
+  void addBreak(int index) {
+    if (frozen) {
+      return;
+    }
+
+    // Restoring a saved state replays lines that are already known
+    if (count > 0 && breaks[count - 1] >= index) {
+      return;
+    }
+
+    if (count == breaks.length) {
+      breaks = Arrays.copyOf(breaks, count * 2);
+    }
+
+    breaks[count++] = index;
+  }
+
+  void setEnd(int index) {
+    if (end == -1 && !frozen) {
+      end = index;
+    }
+  }
+
+  // Stops recording breaks and the end, for indices built by a pre-scan that
+  // lexers of parts of the input then share
+  void freeze() {
+    frozen = true;
+  }
+
+  Location location(int index) {
+    return new Location(line(index), column(index), index);
+  }
+
+  int line(int index) {
+    // The lexer asks about the line it's on, which is past every break
+    // recorded so far
+    if (count == 0 || breaks[count - 1] <= index) {
+      return count;
+    }
+
+    // Number of line breaks at or before the index
+    int low = 0;
+    int high = count;
+
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+
+      if (breaks[mid] <= index) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    return low;
+  }
+
+  int column(int index) {
+    // The end of input doesn't count as a column of its own
+    if (end != -1 && index >= end) {
+      return Math.max(0, columnOf(end) - 1);
+    }
+
+    return columnOf(index);
+  }
+
+  private int columnOf(int index) {
+    int base = lineStart(line(index));
+
+    if (input.isCharIndexed()) {
+      return index - base;
+    }
+
+    // Counted in UTF-16 chars, the same as for a String of the same text
+    int from = base;
+    int col = 0;
+
+    long last = lastColumn;
+    int lastIndex = (int) (last >> 32);
+
+    if (last != -1 && lastIndex >= base && lastIndex <= index) {
+      from = lastIndex;
+      col = (int) last;
+    }
+
+    for (int i = from; i < index; i = input.next(i)) {
+      col += Character.charCount(input.charAt(i));
+    }
+
+    lastColumn = ((long) index << 32) | col;
+    return col;
+  }
+
+  int lineStart(int line) {
+    return line == 0 ? 0 : breaks[line - 1];
+  }
+
+  // Index of the line break ending the line, -1 if the lexer hasn't got
+  // there yet
+  int lineEnd(int line) {
+    return line < count ? breaks[line] : -1;
+  }
+}
@@ -1,5 +1,10 @@
 package me.jules.fxml.parser;
 
+/**
+ * Position in the input. The lexer keeps positions as plain indices and only
+ * resolves them to a line and column through its line index when it hands a
+ * location out.
+ */
 public record Location(int line, int column, int index) {
 
 }
@@ -0,0 +1,487 @@
+package me.jules.fxml.parser;
+
+import static me.jules.fxml.parser.CharClass.isNameChar;
+import static me.jules.fxml.parser.CharClass.isUnquotedStringChar;
+import static me.jules.fxml.parser.CharClass.isWhitespace;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.xml.parsers.DocumentBuilder;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Parses documents with many children under the root element in parallel.
+ * <p>
+ * A pre-scan follows the grammar closely enough to find where each child of
+ * the root ends, without creating tokens. The root's body is then split at
+ * those points into slices that are parsed into separate fragments on a
+ * {@link ForkJoinPool}, and the fragments are joined in document order.
+ * Locations reported by the slices are the same as for a sequential parse.
+ * <p>
+ * The listener is called from several threads, and the input must allow
+ * concurrent reads, which rules out {@link CharInput#of(java.io.Reader)}.
+ * Inputs that are too small to split, or that the pre-scan doesn't
+ * understand, are parsed sequentially.
+ */
+public class ParallelParser {
+
+  // Slices smaller than this aren't worth a task
+  public static final int MIN_SLICE_LENGTH = 16 * 1024;
+
+  // Slices per pool thread, more slices balance uneven subtrees better
+  static final int SLICES_PER_THREAD = 4;
+
+  // Document.adoptNode() recurses into the children, slices nested deeper
+  // than this are adopted one node at a time instead
+  static final int MAX_ADOPT_DEPTH = 256;
+
+  private final ForkJoinPool pool;
+  private final DocumentBuilder builder;
+  private final DOMImplementation domImpl;
+
+  private int maxDepth = Parser.UNLIMITED_DEPTH;
+  private int minSliceLength = MIN_SLICE_LENGTH;
+
+  public ParallelParser(ForkJoinPool pool, DocumentBuilder builder) {
+    this.pool = Objects.requireNonNull(pool, "Null pool");
+    this.builder = Objects.requireNonNull(builder, "Null builder");
+    this.domImpl = builder.getDOMImplementation();
+  }
+
+  public void setMaxDepth(int maxDepth) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("Max depth must be at least 1, was " + maxDepth);
+    }
+    this.maxDepth = maxDepth;
+  }
+
+  public void setMinSliceLength(int minSliceLength) {
+    if (minSliceLength < 1) {
+      throw new IllegalArgumentException("Min slice length must be positive, was " + minSliceLength);
+    }
+    this.minSliceLength = minSliceLength;
+  }
+
+  public Document parse(CharInput input, ParserListener listener) {
+    if (input instanceof ReaderInput) {
+      throw new IllegalArgumentException("Streaming inputs can't be parsed in parallel");
+    }
+
+    Skimmer skim = new Skimmer(input);
+    int[] cuts = skim.skim() ? cuts(skim) : null;
+
+    if (cuts == null) {
+      return parseSequential(input, listener);
+    }
+
+    skim.lines.freeze();
+
+    Document document = builder.newDocument();
+    Parser rootParser = parser(input, listener, skim.lines, 0, skim.bodyStart);
+    rootParser.parseRoot(new DomBuilder(document));
+
+    List<ForkJoinTask<Slice>> tasks = new ArrayList<>(cuts.length - 1);
+    for (int i = 0; i < cuts.length - 1; i++) {
+      int start = cuts[i];
+      int end = cuts[i + 1];
+
+      tasks.add(pool.submit(() -> parseSlice(input, listener, skim.lines, start, end)));
+    }
+
+    Element root = document.getDocumentElement();
+    boolean strict = document.getStrictErrorChecking();
+
+    // Joined in document order, so the first failing slice is the one a
+    // sequential parse would've failed in
+    for (ForkJoinTask<Slice> task : tasks) {
+      Slice slice = task.join();
+
+      if (slice.failure() != null) {
+        for (ForkJoinTask<Slice> t : tasks) {
+          t.cancel(false);
+        }
+        throw slice.failure();
+      }
+
+      if (slice.depth() <= MAX_ADOPT_DEPTH) {
+        document.adoptNode(slice.fragment());
+        DomBuilder.appendChild(document, strict, root, slice.fragment());
+      } else {
+        adoptChildren(document, strict, slice.fragment(), root);
+      }
+    }
+
+    return document;
+  }
+
+  // Moves the children of a node from another document to the parent, with
+  // no recursion. Each node's children are taken off before it's adopted, so
+  // adoptNode() has nothing to recurse into, and are appended to it after.
+  private static void adoptChildren(Document document, boolean strict, Node from, Node parent) {
+    ArrayDeque<Node> nodes = new ArrayDeque<>();
+    ArrayDeque<Node> parents = new ArrayDeque<>();
+
+    pushChildren(from, parent, nodes, parents);
+
+    while (!nodes.isEmpty()) {
+      Node node = nodes.pop();
+      Node to = parents.pop();
+
+      pushChildren(node, node, nodes, parents);
+
+      DomBuilder.appendChild(document, strict, to, document.adoptNode(node));
+    }
+  }
+
+  // Detaches the children, last first, so they're popped in document order
+  private static void pushChildren(
+      Node node,
+      Node parent,
+      ArrayDeque<Node> nodes,
+      ArrayDeque<Node> parents
+  ) {
+    Node child = node.getLastChild();
+
+    while (child != null) {
+      Node previous = child.getPreviousSibling();
+      node.removeChild(child);
+
+      nodes.push(child);
+      parents.push(parent);
+      child = previous;
+    }
+  }
+
+  private Document parseSequential(CharInput input, ParserListener listener) {
+    TokenStream stream = new TokenStream(input, listener);
+    Parser parser = new Parser(stream, listener, builder);
+    parser.setMaxDepth(maxDepth);
+    return parser.parse();
+  }
+
+  // Errors are returned instead of thrown, join() would wrap them
+  private Slice parseSlice(
+      CharInput input,
+      ParserListener listener,
+      LineIndex lines,
+      int start,
+      int end
+  ) {
+    Document document = domImpl.createDocument(null, null, null);
+    DocumentFragment fragment = document.createDocumentFragment();
+    SliceBuilder builder = new SliceBuilder(document, fragment);
+
+    try {
+      Parser parser = parser(input, listener, lines, start, end);
+      parser.parseContent(builder, 1);
+    } catch (RuntimeException exc) {
+      return new Slice(null, 0, exc);
+    }
+
+    return new Slice(fragment, builder.maxDepth, null);
+  }
+
+  private record Slice(DocumentFragment fragment, int depth, RuntimeException failure) {
+
+  }
+
+  // Keeps track of how deep the slice's elements are nested
+  private static final class SliceBuilder extends DomBuilder {
+
+    private int depth = 0;
+    private int maxDepth = 0;
+
+    SliceBuilder(Document document, Node parent) {
+      super(document, parent);
+    }
+
+    @Override
+    public void startElement(String name, Location location) {
+      super.startElement(name, location);
+      maxDepth = Math.max(maxDepth, ++depth);
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+      super.endElement(name, location);
+      depth--;
+    }
+  }
+
+  private Parser parser(CharInput input, ParserListener listener, LineIndex lines, int start, int end) {
+    SliceInput slice = new SliceInput(input, start, end);
+    TokenStream stream = new TokenStream(slice, listener, new SymbolTable(), lines, start);
+
+    Parser parser = new Parser(stream, listener);
+    parser.setMaxDepth(maxDepth);
+    return parser;
+  }
+
+  // Splits the root's body at child element ends into slices of roughly
+  // equal length. Returns null if there'd be less than 2 slices.
+  private int[] cuts(Skimmer skim) {
+    int bodyLength = skim.bodyEnd - skim.bodyStart;
+    int slices = pool.getParallelism() * SLICES_PER_THREAD;
+    int target = Math.max(minSliceLength, bodyLength / slices);
+
+    int[] cuts = new int[Math.min(skim.childCount, slices) + 2];
+    int count = 0;
+
+    cuts[count++] = skim.bodyStart;
+
+    for (int i = 0; i < skim.childCount; i++) {
+      int end = skim.childEnds[i];
+
+      if (end - cuts[count - 1] >= target && skim.bodyEnd - end >= target / 2) {
+        if (count == cuts.length - 1) {
+          break;
+        }
+        cuts[count++] = end;
+      }
+    }
+
+    cuts[count++] = skim.bodyEnd;
+
+    if (count < 3) {
+      return null;
+    }
+
+    return Arrays.copyOf(cuts, count);
+  }
+
+  // Follows the lexer's rules for where tags, attribute lists, quoted strings
+  // and bodies start and end, without creating any tokens. Records line
+  // breaks the same way TokenStream.advance() does.
+  static final class Skimmer {
+
+    // Results of elementHeader(), INVALID for anything the parser would
+    // report as an error
+    static final int INVALID = -1;
+    static final int NO_BODY = 0;
+    static final int BODY = 1;
+
+    final CharInput input;
+    final LineIndex lines;
+
+    int bodyStart;
+    int bodyEnd;
+
+    int[] childEnds = new int[64];
+    int childCount = 0;
+
+    private int cursor = 0;
+    private int currentChar;
+
+    private final BodyScanner body = new BodyScanner();
+
+    Skimmer(CharInput input) {
+      this.input = input;
+      this.lines = new LineIndex(input);
+    }
+
+    // Returns false if the input isn't a root element with a body, or
+    // breaks the grammar in a way the real parser should report
+    boolean skim() {
+      currentChar = input.charAt(0);
+      skipWhitespace();
+
+      if (!isTagStart() || !element()) {
+        return false;
+      }
+
+      bodyStart = cursor;
+      int depth = 1;
+
+      while (true) {
+        skipPlainText();
+
+        int ch = currentChar;
+
+        if (ch == CharInput.EOF) {
+          return false;
+        }
+
+        if (ch == '}') {
+          if (--depth == 0) {
+            bodyEnd = cursor;
+            return true;
+          }
+
+          advance();
+
+          if (depth == 1) {
+            addChildEnd(cursor);
+          }
+          continue;
+        }
+
+        if (isTagStart()) {
+          int header = elementHeader();
+
+          if (header == INVALID) {
+            return false;
+          }
+
+          if (header == BODY) {
+            depth++;
+          } else if (depth == 1) {
+            addChildEnd(cursor);
+          }
+          continue;
+        }
+
+        advance();
+      }
+    }
+
+    private boolean element() {
+      return elementHeader() == BODY;
+    }
+
+    // Reads a tag name and its attributes. If the element has a body, the
+    // cursor is moved past the opening brace.
+    private int elementHeader() {
+      while (isNameChar(currentChar)) {
+        advance();
+      }
+
+      skipWhitespace();
+
+      if (currentChar == '(') {
+        advance();
+
+        if (!attributes()) {
+          return INVALID;
+        }
+
+        // The parser skips whitespace after the attributes either way, the
+        // element ends after it
+        skipWhitespace();
+
+        if (currentChar != '{') {
+          return NO_BODY;
+        }
+      }
+
+      if (currentChar != '{') {
+        return INVALID;
+      }
+
+      advance();
+      return BODY;
+    }
+
+    private boolean attributes() {
+      while (true) {
+        skipWhitespace();
+
+        switch (currentChar) {
+          case ')' -> {
+            advance();
+            return true;
+          }
+          case '=' -> advance();
+
+          case '"', '\'', '`' -> {
+            if (!skipQuoted()) {
+              return false;
+            }
+          }
+
+          case CharInput.EOF, '(', '{', '}' -> {
+            return false;
+          }
+
+          default -> {
+            while (isUnquotedStringChar(currentChar)) {
+              advance();
+            }
+          }
+        }
+      }
+    }
+
+    private boolean skipQuoted() {
+      int quote = currentChar;
+      advance();
+
+      while (true) {
+        if (currentChar == CharInput.EOF) {
+          return false;
+        }
+
+        if (currentChar == quote) {
+          advance();
+          return true;
+        }
+
+        if (currentChar == '\\') {
+          advance();
+
+          if (currentChar == CharInput.EOF) {
+            return false;
+          }
+        }
+
+        advance();
+      }
+    }
+
+    private void addChildEnd(int index) {
+      if (childCount == childEnds.length) {
+        childEnds = Arrays.copyOf(childEnds, childCount * 2);
+      }
+      childEnds[childCount++] = index;
+    }
+
+    private void skipWhitespace() {
+      while (isWhitespace(currentChar)) {
+        advance();
+      }
+    }
+
+    // Same as TokenStream.skipPlainText(), without the caching of scan
+    // results, since the skimmer never comes back to the same text
+    private void skipPlainText() {
+      int stop = input.scanText(cursor, cursor + BodyScanner.SCAN_CHUNK);
+      int plain = BodyScanner.plainEnd(input, cursor, stop);
+
+      if (plain > cursor) {
+        cursor = plain;
+        currentChar = input.charAt(plain);
+      }
+    }
+
+    private void advance() {
+      int next = input.next(cursor);
+      int ch = input.charAt(next);
+
+      if (ch == '\n') {
+        lines.addBreak(next);
+      } else if (ch == '\r') {
+        if (input.charAt(input.next(next)) == '\n') {
+          next = input.next(next);
+        }
+
+        lines.addBreak(next);
+        ch = '\n';
+      }
+
+      cursor = next;
+      currentChar = ch;
+    }
+
+    private boolean isTagStart() {
+      return body.isTagStart(input, cursor, currentChar);
+    }
+  }
+}
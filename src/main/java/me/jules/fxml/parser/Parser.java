@@ -10,21 +10,38 @@ import static me.jules.fxml.parser.TokenType.SQUIGGLY_CLOSE;
 import static me.jules.fxml.parser.TokenType.SQUIGGLY_OPEN;
 import static me.jules.fxml.parser.TokenType.TAG_NAME;
 
-import java.util.Stack;
+import java.util.ArrayDeque;
 import java.util.StringJoiner;
 import javax.xml.parsers.DocumentBuilder;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
 
 public class Parser {
 
+  public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
   private final TokenStream stream;
-  private final ParserListener listener;
+  private ParserListener listener;
   private final DocumentBuilder dom;
 
-  private Document document;
-  private Stack<Element> stack = new Stack<>();
+  private DocumentHandler handler;
+  private int maxDepth = UNLIMITED_DEPTH;
+  private boolean recoverErrors = false;
+
+  // Depth of the elements the parsed input is nested in, for parts of a
+  // document parsed on their own
+  private int baseDepth = 0;
+
+  // Names of the elements whose body is being parsed, innermost first
+  private final ArrayDeque<String> open = new ArrayDeque<>();
+
+  // Element whose name and attributes are being read, and the token the
+  // last failed expect() found, for recovering from errors
+  private String header;
+  private Token failed;
+
+  public Parser(TokenStream stream, ParserListener listener) {
+    this(stream, listener, null);
+  }
 
   public Parser(TokenStream stream, ParserListener listener, DocumentBuilder builder) {
     this.stream = stream;
@@ -32,6 +49,53 @@ public class Parser {
     this.dom = builder;
   }
 
+  // Prepares the parser for another input, the stream has to be reset
+  // separately
+  void reset(ParserListener listener) {
+    this.listener = listener;
+    this.handler = null;
+    this.baseDepth = 0;
+    this.header = null;
+    this.failed = null;
+    open.clear();
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Sets the maximum element nesting depth, the root element being at depth
+   * 1. Deeper elements are reported as an error as soon as their name is
+   * read.
+   *
+   * @param maxDepth Max depth, or {@link #UNLIMITED_DEPTH}
+   */
+  public void setMaxDepth(int maxDepth) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("Max depth must be at least 1, was " + maxDepth);
+    }
+    this.maxDepth = maxDepth;
+  }
+
+  public boolean isRecoverErrors() {
+    return recoverErrors;
+  }
+
+  /**
+   * Sets whether the parser carries on after reporting a syntax error, for
+   * use with a listener that doesn't throw, like {@link DiagnosticCollector}.
+   * <p>
+   * A broken attribute list is skipped up to its closing parenthesis, or up
+   * to where the element's body or next sibling starts if it has none.
+   * Elements still open at the end of input are closed, and so is
+   * everything else once an element is nested too deep. The handler always
+   * gets balanced start and end events.
+   */
+  public void setRecoverErrors(boolean recoverErrors) {
+    this.recoverErrors = recoverErrors;
+  }
+
   public void warn(Location location, String format, Object... args) {
     listener.warn(location, format, args);
   }
@@ -107,6 +171,11 @@ public class Parser {
        t.toString()
     );
 
+    if (recoverErrors) {
+      failed = t;
+      throw Recover.RESYNC;
+    }
+
     return t;
   }
 
@@ -127,23 +196,173 @@ public class Parser {
   }
 
   public Document parse() {
+    if (dom == null) {
+      throw new IllegalStateException("No DocumentBuilder set, use parse(DocumentHandler)");
+    }
+
+    DomBuilder builder = new DomBuilder(dom.newDocument());
+    parse(builder);
+
+    return builder.getDocument();
+  }
+
+  public void parse(DocumentHandler handler) {
+    parseRoot(handler);
+
+    while (parseNext()) {
+
+    }
+  }
+
+  // Starts the document and reads the root element up to the start of its
+  // body. Returns false if the root element has no body.
+  boolean parseRoot(DocumentHandler handler) {
+    this.handler = handler;
+    this.baseDepth = 0;
+    open.clear();
+
     skipWhitespace();
 
-    Token peek = peek();
-    expect(peek, TAG_NAME);
+    try {
+      expect(peek(), TAG_NAME);
+    } catch (Recover r) {
+      // Anything before the root element is skipped
+      while (!matches(TAG_NAME, TokenType.EOF)) {
+        next();
+      }
+    }
+
+    handler.startDocument();
+
+    if (!matches(TAG_NAME)) {
+      return false;
+    }
 
-    document = dom.newDocument();
-    Element root = element();
-    document.appendChild(root);
+    try {
+      element();
+    } catch (Recover r) {
+      recover(r);
+    }
 
-    return document;
+    return !open.isEmpty();
   }
 
-  Element element() {
+  /**
+   * Parses the next piece of the root element's body after
+   * {@link #parseRoot(DocumentHandler)}: a text, an element's end, or
+   * another element's name and attributes. Lets {@link FxmlStreamReader}
+   * pull events from the same grammar that {@link #parse(DocumentHandler)}
+   * pushes them from.
+   *
+   * @return False once the document has ended, after the handler's
+   *         endDocument()
+   */
+  boolean parseNext() {
+    boolean more;
+
+    try {
+      more = parseBody(false);
+    } catch (Recover r) {
+      more = recover(r);
+    }
+
+    if (!more) {
+      handler.endDocument();
+    }
+
+    return more;
+  }
+
+  // Parses element body content up to the end of input, as if inside depth
+  // open elements. Used for slices of a document that are parsed separately.
+  void parseContent(DocumentHandler handler, int depth) {
+    this.handler = handler;
+    this.baseDepth = depth;
+    open.clear();
+
+    while (true) {
+      try {
+        while (parseBody(true)) {
+
+        }
+        return;
+      } catch (Recover r) {
+        if (!recover(r)) {
+          return;
+        }
+      }
+    }
+  }
+
+  // Parses one token's worth of body content. Elements are opened by
+  // element() and closed here, so nesting depth only grows the open element
+  // stack, never the call stack. Returns false at the end of the content.
+  private boolean parseBody(boolean toEnd) {
+    if (!toEnd && open.isEmpty()) {
+      return false;
+    }
+
+    Token tk = peek();
+
+    if (tk.type() == SEQUENCE) {
+      next();
+
+      if (!tk.input().isBlank()) {
+        handler.text(tk.input(), tk.start());
+      }
+
+      return true;
+    }
+
+    if (tk.type() == SQUIGGLY_CLOSE && !open.isEmpty()) {
+      next();
+      handler.endElement(open.pop(), tk.start());
+      return true;
+    }
+
+    if (tk.type() == TAG_NAME) {
+      element();
+      return true;
+    }
+
+    next();
+
+    if (tk.type() == TokenType.EOF && toEnd && open.isEmpty()) {
+      return false;
+    }
+
+    error(tk.start(), "Unexpected token: %s", tk.toString());
+
+    if (tk.type() == TokenType.EOF) {
+      if (recoverErrors) {
+        closeAll(tk.start());
+      }
+      return false;
+    }
+
+    return true;
+  }
+
+  // Reads an element's name and attributes. Elements with a body are left
+  // open for parseBody() to read the body of, others are ended right away.
+  void element() {
     Token t = expect(TAG_NAME);
     String name = t.input();
+    Location end = t.end();
 
-    Element e = document.createElement(name);
+    if (baseDepth + open.size() >= maxDepth) {
+      error(t.start(), "Element '%s' exceeds the max nesting depth of %s", name, maxDepth);
+
+      if (recoverErrors) {
+        failed = t;
+        throw Recover.ABORT;
+      }
+
+      throw new IllegalStateException("Max nesting depth of " + maxDepth + " exceeded");
+    }
+
+    handler.startElement(name, t.start());
+    header = name;
     skipWhitespace();
 
     if (matches(ARGUMENTS_START)) {
@@ -151,54 +370,80 @@ public class Parser {
       skipWhitespace();
 
       while (!matches(ARGUMENTS_END)) {
-        attribute(e);
+        attribute();
         skipWhitespace();
       }
 
-      next();
+      end = next().end();
     }
 
+    elementEnd(name, end);
+  }
+
+  private void elementEnd(String name, Location end) {
+    header = null;
     skipWhitespace();
 
     if (matches(SQUIGGLY_OPEN)) {
       next();
+      open.push(name);
+      return;
+    }
 
-      while (true) {
-        Token tk = peek();
+    handler.endElement(name, end);
+  }
 
-        if (tk.type() == SEQUENCE) {
-          next();
+  // Picks up parsing after a reported error. Returns false if parsing should
+  // stop, with every open element closed.
+  private boolean recover(Recover r) {
+    Location at = failed.start();
 
-          if (tk.input().isBlank()) {
-            continue;
-          }
+    if (r == Recover.ABORT) {
+      closeAll(at);
+      return false;
+    }
 
-          Node n = document.createTextNode(tk.input());
-          e.appendChild(n);
+    String name = header;
 
-          continue;
-        }
+    // Only attribute lists fail to parse, anything else in a body is text
+    if (name == null) {
+      return true;
+    }
 
-        if (tk.type() == SQUIGGLY_CLOSE) {
-          next();
-          break;
-        }
+    // Relex from the token that failed, skipping the rest of the attributes
+    stream.resync(at.index(), LexerScope.TAG_ATTRS);
 
-        if (tk.type() == TAG_NAME) {
-          Element el = element();
-          e.appendChild(el);
-          continue;
-        }
+    skipWhitespace();
 
-        next();
-        error(tk.start(), "Unexpected token: %s", tk.toString());
-      }
+    while (!matches(ARGUMENTS_END, SQUIGGLY_OPEN, SQUIGGLY_CLOSE, TokenType.EOF)) {
+      next();
+      skipWhitespace();
     }
 
-    return e;
+    Location end;
+
+    if (matches(ARGUMENTS_END)) {
+      // Parentheses in the skipped part may have nested the lexer's scopes
+      stream.resync(peek().start().index(), LexerScope.TAG_ATTRS);
+      end = next().end();
+    } else {
+      // The attribute list was never closed, a brace after it is the start
+      // of the element's body or the end of its parent's
+      end = peek().start();
+      stream.resync(end.index(), LexerScope.TAG);
+    }
+
+    elementEnd(name, end);
+    return true;
   }
 
-  void attribute(Element element) {
+  private void closeAll(Location location) {
+    while (!open.isEmpty()) {
+      handler.endElement(open.pop(), location);
+    }
+  }
+
+  void attribute() {
     Token attrToken = expect(QUOTED_STRING, IDENTIFIER);
     String attrName = attrToken.input();
     String attrValue;
@@ -219,6 +464,18 @@ public class Parser {
       attrValue = "";
     }
 
-    element.setAttribute(attrName, attrValue);
+    handler.attribute(attrName, attrValue, attrToken.start());
+  }
+
+  // Unwinds to parseNext() or parseContent() after an error has been reported in recovery mode
+  @SuppressWarnings("serial")
+  private static final class Recover extends RuntimeException {
+
+    static final Recover RESYNC = new Recover();
+    static final Recover ABORT = new Recover();
+
+    private Recover() {
+      super(null, null, false, false);
+    }
   }
 }
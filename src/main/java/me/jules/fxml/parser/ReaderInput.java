@@ -0,0 +1,161 @@
+package me.jules.fxml.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+final class ReaderInput implements CharInput {
+
+  static final int DEFAULT_WINDOW = 8192;
+
+  private final Reader reader;
+
+  private char[] window;
+
+  // Absolute index of window[0]
+  private int windowStart = 0;
+
+  // Number of valid chars in the window
+  private int filled = 0;
+
+  // Absolute index before which chars may be dropped
+  private int released = 0;
+
+  private boolean eof = false;
+
+  ReaderInput(Reader reader, int windowSize) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("Window size must be positive, was " + windowSize);
+    }
+
+    this.reader = reader;
+    this.window = new char[windowSize];
+  }
+
+  @Override
+  public int charAt(int index) {
+    int rel = index - windowStart;
+
+    if (rel < 0) {
+      return EOF;
+    }
+
+    if (rel >= filled) {
+      if (!fill(index)) {
+        return EOF;
+      }
+
+      rel = index - windowStart;
+    }
+
+    return window[rel];
+  }
+
+  @Override
+  public String substring(int start, int end) {
+    if (end > windowStart + filled) {
+      fill(end - 1);
+    }
+
+    int s = Math.max(windowStart, start);
+    int e = Math.min(windowStart + filled, end);
+
+    if (s >= e) {
+      return "";
+    }
+
+    return new String(window, s - windowStart, e - s);
+  }
+
+  @Override
+  public int scanText(int from, int to) {
+    int s = Math.max(windowStart, from);
+    int e = available(to);
+
+    if (s >= e) {
+      return s;
+    }
+
+    return TextScan.scanText(window, s - windowStart, e - windowStart) + windowStart;
+  }
+
+  @Override
+  public int scanQuoted(int quote, int from, int to) {
+    int s = Math.max(windowStart, from);
+    int e = available(to);
+
+    if (s >= e) {
+      return s;
+    }
+
+    return TextScan.scanQuoted(window, quote, s - windowStart, e - windowStart) + windowStart;
+  }
+
+  // Fills the window up to the specified end index, as far as the input goes,
+  // and returns the end of what is available
+  private int available(int end) {
+    if (end > windowStart + filled) {
+      fill(end - 1);
+    }
+    return Math.min(end, windowStart + filled);
+  }
+
+  @Override
+  public void release(int index) {
+    if (index > released) {
+      released = index;
+    }
+  }
+
+  // Current window size, for tests
+  int capacity() {
+    return window.length;
+  }
+
+  // Reads until the window contains the specified index, returns false if
+  // the input ends before that
+  private boolean fill(int index) {
+    while (index >= windowStart + filled) {
+      if (eof) {
+        return false;
+      }
+
+      if (filled == window.length) {
+        makeRoom();
+      }
+
+      int read;
+      try {
+        read = reader.read(window, filled, window.length - filled);
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+
+      if (read == -1) {
+        eof = true;
+        return false;
+      }
+
+      filled += read;
+    }
+
+    return true;
+  }
+
+  // Drops released chars from the front of the window, and if nothing can be
+  // dropped because a single token spans the whole window, grows it instead
+  private void makeRoom() {
+    int drop = Math.min(released - windowStart, filled);
+
+    if (drop > 0) {
+      System.arraycopy(window, drop, window, 0, filled - drop);
+      windowStart += drop;
+      filled -= drop;
+      return;
+    }
+
+    char[] grown = new char[window.length * 2];
+    System.arraycopy(window, 0, grown, 0, filled);
+    window = grown;
+  }
+}
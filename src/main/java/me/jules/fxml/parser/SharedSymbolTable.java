@@ -0,0 +1,49 @@
+package me.jules.fxml.parser;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, thread safe set of canonical strings shared by the
+ * {@link SymbolTable}s of several parsers. Only consulted when a parser's own
+ * table misses, so lookups here don't need to be allocation free.
+ */
+public class SharedSymbolTable {
+
+  private final int maxSymbols;
+  private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<>();
+
+  public SharedSymbolTable(int maxSymbols) {
+    if (maxSymbols < 0) {
+      throw new IllegalArgumentException("Negative max symbols: " + maxSymbols);
+    }
+
+    this.maxSymbols = maxSymbols;
+  }
+
+  /**
+   * Gets the canonical instance of {@code symbol}. Once the table is full,
+   * unknown symbols are returned as is.
+   */
+  public String intern(String symbol) {
+    String existing = symbols.get(symbol);
+    if (existing != null) {
+      return existing;
+    }
+
+    // Concurrent adds may overshoot the bound by a few entries, which is fine
+    if (symbols.size() >= maxSymbols) {
+      return symbol;
+    }
+
+    existing = symbols.putIfAbsent(symbol, symbol);
+    return existing == null ? symbol : existing;
+  }
+
+  public int size() {
+    return symbols.size();
+  }
+
+  public int maxSymbols() {
+    return maxSymbols;
+  }
+}
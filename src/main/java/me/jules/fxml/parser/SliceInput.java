@@ -0,0 +1,53 @@
+package me.jules.fxml.parser;
+
+// Part of another input, keeping the other input's indices. Everything
+// outside of [start, end) reads as EOF.
+final class SliceInput implements CharInput {
+
+  private final CharInput input;
+  private final int start;
+  private final int end;
+
+  SliceInput(CharInput input, int start, int end) {
+    this.input = input;
+    this.start = start;
+    this.end = end;
+  }
+
+  @Override
+  public int charAt(int index) {
+    if (index < start || index >= end) {
+      return EOF;
+    }
+
+    return input.charAt(index);
+  }
+
+  @Override
+  public String substring(int start, int end) {
+    return input.substring(Math.max(this.start, start), Math.min(this.end, end));
+  }
+
+  @Override
+  public int next(int index) {
+    return input.next(index);
+  }
+
+  @Override
+  public boolean isCharIndexed() {
+    return input.isCharIndexed();
+  }
+
+  @Override
+  public int scanText(int from, int to) {
+    return input.scanText(from, Math.min(end, to));
+  }
+
+  @Override
+  public int scanQuoted(int quote, int from, int to) {
+    return input.scanQuoted(quote, from, Math.min(end, to));
+  }
+
+  // Slices are read by several threads, so nothing may be released from the
+  // underlying input
+}
@@ -0,0 +1,48 @@
+package me.jules.fxml.parser;
+
+final class StringInput implements CharInput {
+
+  private final String string;
+  private final int length;
+
+  StringInput(String string) {
+    this.string = string;
+    this.length = string.length();
+  }
+
+  @Override
+  public int charAt(int index) {
+    if (index < 0 || index >= length) {
+      return EOF;
+    }
+
+    return string.charAt(index);
+  }
+
+  @Override
+  public String substring(int start, int end) {
+    int s = Math.max(0, start);
+    int e = Math.min(length, end);
+
+    if (s >= e) {
+      return "";
+    }
+
+    return string.substring(s, e);
+  }
+
+  @Override
+  public int scanText(int from, int to) {
+    return TextScan.scanText(string, Math.max(0, from), Math.min(length, to));
+  }
+
+  @Override
+  public int scanQuoted(int quote, int from, int to) {
+    return TextScan.scanQuoted(string, quote, Math.max(0, from), Math.min(length, to));
+  }
+
+  @Override
+  public String toString() {
+    return string;
+  }
+}
@@ -0,0 +1,212 @@
+package me.jules.fxml.parser;
+
+import java.util.Arrays;
+
+/**
+ * Maps spans of a {@link CharInput} to canonical strings, so repeated tag
+ * and attribute names share one String instance, and an int id, without
+ * allocating on a hit.
+ * <p>
+ * A table is not thread safe and is meant to be owned by one parser at a
+ * time. To share symbols between parsers, back each table with a
+ * {@link SharedSymbolTable}.
+ */
+public class SymbolTable {
+
+  public static final int DEFAULT_MAX_SYMBOLS = 4096;
+
+  // Longer spans are very unlikely to repeat and not worth hashing twice
+  public static final int MAX_LENGTH = 64;
+
+  static final int NONE = -1;
+
+  private final int maxSymbols;
+  private final SharedSymbolTable shared;
+
+  private String[] symbols;
+  private int[] hashes;
+  private int size = 0;
+
+  // Open addressing, each slot holds a symbol id + 1, 0 for empty slots
+  private int[] slots;
+
+  public SymbolTable() {
+    this(DEFAULT_MAX_SYMBOLS, null);
+  }
+
+  public SymbolTable(SharedSymbolTable shared) {
+    this(DEFAULT_MAX_SYMBOLS, shared);
+  }
+
+  public SymbolTable(int maxSymbols, SharedSymbolTable shared) {
+    if (maxSymbols < 0) {
+      throw new IllegalArgumentException("Negative max symbols: " + maxSymbols);
+    }
+
+    this.maxSymbols = maxSymbols;
+    this.shared = shared;
+
+    this.symbols = new String[16];
+    this.hashes = new int[16];
+    this.slots = new int[32];
+  }
+
+  /**
+   * Gets the canonical string for the input between {@code start} and
+   * {@code end}. Once the table is full, or for spans longer than
+   * {@link #MAX_LENGTH}, this returns a new string.
+   */
+  public String intern(CharInput input, int start, int end) {
+    int id = internId(input, start, end);
+
+    if (id == NONE) {
+      return input.substring(start, end);
+    }
+
+    return symbols[id];
+  }
+
+  /**
+   * Gets the id of the symbol for the input between {@code start} and
+   * {@code end}, adding it if it isn't known yet. Returns -1 if the span
+   * can't be added.
+   */
+  public int internId(CharInput input, int start, int end) {
+    if (end - start > MAX_LENGTH || end < start) {
+      return NONE;
+    }
+
+    int hash = hash(input, start, end);
+    int mask = slots.length - 1;
+    int slot = hash & mask;
+
+    while (slots[slot] != 0) {
+      int id = slots[slot] - 1;
+
+      if (hashes[id] == hash && matches(symbols[id], input, start, end)) {
+        return id;
+      }
+
+      slot = (slot + 1) & mask;
+    }
+
+    if (size >= maxSymbols) {
+      return NONE;
+    }
+
+    String symbol = input.substring(start, end);
+
+    // Inputs that replace malformed data in charAt() and substring()
+    // differently would never hit this entry
+    if (!matches(symbol, input, start, end)) {
+      return NONE;
+    }
+
+    if (shared != null) {
+      symbol = shared.intern(symbol);
+    }
+
+    return add(symbol, hash, slot);
+  }
+
+  /**
+   * Gets the symbol with the specified id, as returned by
+   * {@link #internId(CharInput, int, int)}.
+   */
+  public String symbol(int id) {
+    if (id < 0 || id >= size) {
+      throw new IndexOutOfBoundsException(id);
+    }
+    return symbols[id];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Whether new spans are no longer added, see {@link #intern(CharInput, int, int)} */
+  public boolean isFull() {
+    return size >= maxSymbols;
+  }
+
+  public void clear() {
+    Arrays.fill(symbols, 0, size, null);
+    Arrays.fill(slots, 0);
+    size = 0;
+  }
+
+  private int add(String symbol, int hash, int slot) {
+    int id = size++;
+
+    if (id == symbols.length) {
+      symbols = Arrays.copyOf(symbols, id * 2);
+      hashes = Arrays.copyOf(hashes, id * 2);
+    }
+
+    symbols[id] = symbol;
+    hashes[id] = hash;
+    slots[slot] = id + 1;
+
+    // Keep the load factor under 1/2
+    if (size * 2 > slots.length) {
+      rehash();
+    }
+
+    return id;
+  }
+
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    int mask = slots.length - 1;
+
+    for (int id = 0; id < size; id++) {
+      int slot = hashes[id] & mask;
+
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+
+      slots[slot] = id + 1;
+    }
+  }
+
+  private static int hash(CharInput input, int start, int end) {
+    int h = 0;
+
+    for (int i = start; i < end; i = input.next(i)) {
+      h = 31 * h + input.charAt(i);
+    }
+
+    // Spread the bits, the table only uses the low ones
+    return h ^ (h >>> 16);
+  }
+
+  // Compares by code point, since byte indexed inputs return whole code
+  // points from charAt()
+  private static boolean matches(String symbol, CharInput input, int start, int end) {
+    int j = 0;
+    int len = symbol.length();
+
+    for (int i = start; i < end; i = input.next(i)) {
+      if (j >= len) {
+        return false;
+      }
+
+      int ch = input.charAt(i);
+
+      if (ch > Character.MAX_VALUE) {
+        if (symbol.codePointAt(j) != ch) {
+          return false;
+        }
+        j += 2;
+      } else {
+        if (symbol.charAt(j) != ch) {
+          return false;
+        }
+        j++;
+      }
+    }
+
+    return j == len;
+  }
+}
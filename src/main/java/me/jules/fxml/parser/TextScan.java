@@ -0,0 +1,151 @@
+package me.jules.fxml.parser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// Finds the next char the lexer has to look at individually inside body text
+// and quoted strings. Uses the Vector API when the jdk.incubator.vector module
+// is available, and plain loops otherwise.
+//
+// VectorScan is compiled separately, with the incubator module, so this
+// class and the rest of the library build and run without it. It is only
+// looked up if the module was added to the running JVM.
+//
+// Only char arrays can be loaded into vectors, so the vector scans only
+// apply to inputs backed by one: CharInput.of(char[]) and array-backed
+// CharBuffers. Strings and other CharSequences use the scalar loops.
+// Copying a String into an array first was tried, and parsing a text-heavy
+// document got no faster, lexing is dominated by the rest of the work.
+final class TextScan {
+
+  static final String VECTOR_PROPERTY = "fxml.vectorScan";
+  static final String VECTOR_MODULE = "jdk.incubator.vector";
+  static final String VECTOR_CLASS = "me.jules.fxml.parser.VectorScan";
+
+  // Null if the Vector API isn't used
+  private static final MethodHandle VECTOR_TEXT;
+  private static final MethodHandle VECTOR_QUOTED;
+
+  static final boolean VECTORIZED;
+
+  static {
+    MethodHandle text = null;
+    MethodHandle quoted = null;
+
+    if (vectorEnabled()) {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> type = Class.forName(VECTOR_CLASS, true, TextScan.class.getClassLoader());
+
+        int lanes = (int) lookup.findStaticGetter(type, "LANES", int.class).invokeExact();
+
+        if (lanes > 1) {
+          text = lookup.findStatic(type, "scanText",
+              MethodType.methodType(int.class, char[].class, int.class, int.class)
+          );
+          quoted = lookup.findStatic(type, "scanQuoted",
+              MethodType.methodType(int.class, char[].class, int.class, int.class, int.class)
+          );
+        }
+      } catch (Throwable exc) {
+        // Not packaged, or the JVM can't link it
+        text = null;
+        quoted = null;
+      }
+    }
+
+    VECTOR_TEXT = text;
+    VECTOR_QUOTED = quoted;
+    VECTORIZED = text != null;
+  }
+
+  private TextScan() {
+    throw new UnsupportedOperationException();
+  }
+
+  private static boolean vectorEnabled() {
+    if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))) {
+      return false;
+    }
+
+    return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+  }
+
+  static boolean isTextStop(int ch) {
+    return ch == '{' || ch == '(' || ch == '}' || ch == '\n' || ch == '\r';
+  }
+
+  static boolean isQuotedStop(int ch, int quote) {
+    return ch == quote || ch == '\\' || ch == '\n' || ch == '\r';
+  }
+
+  static int scanText(char[] chars, int from, int to) {
+    if (VECTOR_TEXT != null) {
+      try {
+        return (int) VECTOR_TEXT.invokeExact(chars, from, to);
+      } catch (Throwable exc) {
+        throw rethrow(exc);
+      }
+    }
+    return scanTextScalar(chars, from, to);
+  }
+
+  static int scanQuoted(char[] chars, int quote, int from, int to) {
+    if (VECTOR_QUOTED != null) {
+      try {
+        return (int) VECTOR_QUOTED.invokeExact(chars, quote, from, to);
+      } catch (Throwable exc) {
+        throw rethrow(exc);
+      }
+    }
+    return scanQuotedScalar(chars, quote, from, to);
+  }
+
+  // The scans throw nothing checked, anything thrown is unchecked
+  private static RuntimeException rethrow(Throwable exc) {
+    if (exc instanceof RuntimeException runtime) {
+      return runtime;
+    }
+    if (exc instanceof Error error) {
+      throw error;
+    }
+    return new IllegalStateException(exc);
+  }
+
+  static int scanTextScalar(char[] chars, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isTextStop(chars[i])) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  static int scanQuotedScalar(char[] chars, int quote, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isQuotedStop(chars[i], quote)) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  static int scanText(CharSequence seq, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isTextStop(seq.charAt(i))) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  static int scanQuoted(CharSequence seq, int quote, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isQuotedStop(seq.charAt(i), quote)) {
+        return i;
+      }
+    }
+    return to;
+  }
+}
@@ -1,48 +1,146 @@
 package me.jules.fxml.parser;
 
+import static me.jules.fxml.parser.CharClass.isNameChar;
+import static me.jules.fxml.parser.CharClass.isUnquotedStringChar;
+import static me.jules.fxml.parser.CharClass.isWhitespace;
+
 import java.util.Stack;
 
 public class TokenStream {
 
-  static final int EOF = -1;
+  static final int EOF = CharInput.EOF;
   static final int LF = '\n';
   static final int CR = '\r';
 
-  private final StringBuffer input;
-  private final ParserListener errors;
+  static final int CONTEXT_LENGTH = 10;
+
+  // Buffers larger than this aren't kept around by reset()
+  static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+  private CharInput input;
+  private ParserListener errors;
+  private final SymbolTable symbols;
 
-  private int cursor  = 0;
-  private int line    = 0;
-  private int col     = 0;
+  private LineIndex lines;
+
+  private int cursor = 0;
 
   private int currentChar;
 
-  private Location lastTokenStart;
+  // Set whenever a CR is normalized to LF, so spans copied straight out of the
+  // input know they need the same treatment
+  private boolean sawCR;
+
   private Token peeked;
 
+  // The current token, see nextToken(). Text tokens are a span of the
+  // input, unless they had to be decoded into textBuffer.
+  private int tokenType = TokenType.EOF.ordinal();
+  private int tokenStart = 0;
+  private int tokenEnd = 0;
+  private int valueStart = 0;
+  private int valueEnd = 0;
+  private boolean decoded = false;
+
+  // Set when the current token follows an EQUALS, that is, it's an
+  // attribute value rather than a name
+  private boolean attributeValue = false;
+
+  private final StringBuilder textBuffer = new StringBuilder();
+  private final InputView textView = new InputView();
+
   private final Stack<LexerScope> scopeStack = new Stack<>();
 
-  private String preCursor;
-  private String postCursor;
+  private final BodyScanner body = new BodyScanner();
+
+  // Result of the last bulk text scan, which started at textScanFrom. Text
+  // before plainUntil can't contain a tag start or a closing brace, textStop
+  // is the stop char the scan found.
+  private int textScanFrom = 0;
+  private int plainUntil = 0;
+  private int textStop = 0;
 
-  public TokenStream(StringBuffer input, ParserListener listener) {
+  public TokenStream(CharSequence input, ParserListener listener) {
+    this(CharInput.of(input), listener);
+  }
+
+  public TokenStream(CharInput input, ParserListener listener) {
+    this(input, listener, new SymbolTable());
+  }
+
+  public TokenStream(CharInput input, ParserListener listener, SymbolTable symbols) {
+    this(input, listener, symbols, new LineIndex(input), 0);
+  }
+
+  // Lexes input starting at the specified index, with line breaks before it
+  // already known by the line index
+  TokenStream(
+      CharInput input,
+      ParserListener listener,
+      SymbolTable symbols,
+      LineIndex lines,
+      int start
+  ) {
     this.input = input;
     this.errors = listener;
+    this.symbols = symbols;
+    this.lines = lines;
 
-    this.currentChar = charAt(0);
-    updateContexts();
+    this.cursor = start;
+    this.currentChar = charAt(start);
+
+    if (currentChar == EOF) {
+      lines.setEnd(start);
+    }
   }
 
-  private void updateContexts() {
-    if (cursor <= 0) {
-      preCursor = "";
-    } else {
-      int start = Math.max(0, cursor - 10);
-      preCursor = input.substring(start, cursor);
+  // Prepares the stream to lex another input, keeping the symbol table and
+  // the buffers grown so far. The line index isn't reused, locations handed
+  // out for the previous input still refer to it.
+  void reset(CharInput input, ParserListener listener) {
+    this.input = input;
+    this.errors = listener;
+    this.lines = new LineIndex(input);
+
+    sawCR = false;
+    peeked = null;
+
+    tokenType = TokenType.EOF.ordinal();
+    tokenStart = 0;
+    tokenEnd = 0;
+    valueStart = 0;
+    valueEnd = 0;
+    decoded = false;
+    attributeValue = false;
+
+    textBuffer.setLength(0);
+    if (textBuffer.capacity() > MAX_RETAINED_BUFFER) {
+      textBuffer.trimToSize();
     }
 
-    int end = Math.min(input.length(), cursor + 10);
-    postCursor = input.substring(cursor, end);
+    scopeStack.clear();
+
+    body.reset();
+    textScanFrom = 0;
+    plainUntil = 0;
+    textStop = 0;
+
+    cursor = 0;
+    currentChar = charAt(0);
+
+    if (currentChar == EOF) {
+      lines.setEnd(0);
+    }
+  }
+
+  // Debug context around the cursor, only computed when something asks for
+  // it, so advancing the cursor never allocates
+  String preCursor() {
+    return input.substring(cursor - CONTEXT_LENGTH, cursor);
+  }
+
+  String postCursor() {
+    return input.substring(cursor, cursor + CONTEXT_LENGTH);
   }
 
   public void pushScope(LexerScope scope) {
@@ -50,7 +148,15 @@ public class TokenStream {
   }
 
   public void popScope() {
-    scopeStack.pop();
+    // A stray closing brace outside of any body is left for the parser to
+    // report
+    if (!scopeStack.isEmpty()) {
+      scopeStack.pop();
+    }
+  }
+
+  public SymbolTable symbols() {
+    return symbols;
   }
 
   public LexerScope scope() {
@@ -62,22 +168,46 @@ public class TokenStream {
   }
 
   public Location location() {
-    return new Location(line, col, cursor);
+    return lines.location(cursor);
   }
 
   public StreamState saveState() {
-    return new StreamState(location(), currentChar, peeked, lastTokenStart);
+    return new StreamState(location(), currentChar, peeked, tokenLocation());
+  }
+
+  // Moves the lexer back to index, the start of a token it has already read,
+  // and makes it read on from there in the given scope. Used by the parser to
+  // resync after an error.
+  void resync(int index, LexerScope scope) {
+    cursor = index;
+    currentChar = charAt(index);
+    peeked = null;
+
+    // Lone CRs aren't skipped over like the CR in a CRLF is
+    if (currentChar == CR) {
+      currentChar = LF;
+    }
+
+    // Bodies only ever have regular scopes below them, how many doesn't
+    // change how anything is lexed
+    scopeStack.clear();
+
+    if (scope != LexerScope.REGULAR) {
+      scopeStack.push(LexerScope.TAG);
+    }
+    if (scope == LexerScope.TAG_ATTRS) {
+      scopeStack.push(LexerScope.TAG_ATTRS);
+    }
   }
 
   public void restoreState(StreamState state) {
-    this.line = state.location().line();
-    this.col = state.location().column();
     this.cursor = state.location().index();
 
     this.currentChar = state.currentChar();
 
     this.peeked = state.peeked();
-    this.lastTokenStart = state.lastTokenStart();
+
+    this.tokenStart = state.lastTokenStart().index();
   }
 
   int ahead() {
@@ -85,7 +215,11 @@ public class TokenStream {
   }
 
   int ahead(int off) {
-    return charAt(cursor + off);
+    int c = cursor;
+    for (int i = 0; i < off; i++) {
+      c = input.next(c);
+    }
+    return charAt(c);
   }
 
   void skip(String sequence) {
@@ -99,46 +233,46 @@ public class TokenStream {
   }
 
   void advance() {
-    int nCursor = cursor + 1;
+    int nCursor = input.next(cursor);
+    int nChar = charAt(nCursor);
 
-    if (nCursor >= input.length()) {
+    if (nChar == EOF) {
       currentChar = EOF;
       cursor = nCursor;
+      lines.setEnd(nCursor);
       return;
     }
 
-    int nChar = charAt(nCursor);
-
     if (nChar == LF || nChar == CR) {
-      line++;
-      col = 0;
+      if (nChar == CR) {
+        sawCR = true;
 
-      if (nChar == CR && charAt(nCursor + 1) == LF) {
-        nCursor++;
+        if (charAt(input.next(nCursor)) == LF) {
+          nCursor++;
+        }
       }
 
+      lines.addBreak(nCursor);
+
       // Normalize all line breaks to LF
       nChar = LF;
-    } else {
-      col++;
     }
 
     cursor = nCursor;
     currentChar = nChar;
-
-    updateContexts();
   }
 
   int charAt(int index) {
-    if (index < 0 || index >= input.length()) {
-      return EOF;
-    }
-
     return input.charAt(index);
   }
 
   public void skipWhitespace() {
-    while (Character.isWhitespace(currentChar)) {
+    // The peeked token has already consumed any input at the cursor
+    if (peeked != null) {
+      return;
+    }
+
+    while (isWhitespace(currentChar)) {
       advance();
     }
   }
@@ -166,15 +300,53 @@ public class TokenStream {
   }
 
   private Token readToken() {
-    lastTokenStart = location();
+    nextToken();
+
+    return new Token(
+        TokenType.VALUES[tokenType],
+        tokenString(),
+        tokenLocation(),
+        location()
+    );
+  }
+
+  /**
+   * Reads the next token without creating any objects for it. The token's
+   * type, offsets and text are then available through the {@code token*}
+   * methods until the next call.
+   * <p>
+   * Must not be mixed with a pending {@link #peek()}.
+   *
+   * @return The {@link TokenType#ordinal()} of the read token
+   */
+  public int nextToken() {
+    if (peeked != null) {
+      throw new IllegalStateException("A token has been peeked, use next()");
+    }
 
+    input.release(cursor);
+
+    tokenStart = cursor;
+    decoded = false;
+    attributeValue = tokenType == TokenType.EQUALS.ordinal();
+
+    TokenType type = lexToken();
+
+    tokenType = type.ordinal();
+    tokenEnd = cursor;
+
+    return tokenType;
+  }
+
+  private TokenType lexToken() {
     if (currentChar == EOF) {
-      return token(TokenType.EOF);
+      return emptyValue(TokenType.EOF);
     }
 
     if (currentChar == '}') {
+      advance();
       popScope();
-      return token(TokenType.SQUIGGLY_CLOSE);
+      return emptyValue(TokenType.SQUIGGLY_CLOSE);
     }
 
     LexerScope scope = scope();
@@ -185,8 +357,7 @@ public class TokenStream {
         return readTagName();
       }
 
-      String seq = readSequence();
-      return token(TokenType.SEQUENCE, seq);
+      return readSequence();
     }
 
     // scope == TAG
@@ -194,27 +365,29 @@ public class TokenStream {
       case '(':
         advance();
         pushScope(LexerScope.TAG_ATTRS);
-        return token(TokenType.ARGUMENTS_START);
+        return emptyValue(TokenType.ARGUMENTS_START);
       case ')':
         advance();
         popScope();
 
+        // Tag has no body, its scope ends with the attributes
         int c = cursor;
-        while (Character.isWhitespace(charAt(c))) {
-          c++;
+        while (isWhitespace(charAt(c))) {
+          c = input.next(c);
         }
-        if (charAt(c) != '}') {
+        if (charAt(c) != '{') {
           popScope();
         }
 
-        return token(TokenType.ARGUMENTS_END);
+        return emptyValue(TokenType.ARGUMENTS_END);
       case '{':
         advance();
+        popScope();
         pushScope(LexerScope.REGULAR);
-        return token(TokenType.SQUIGGLY_OPEN);
+        return emptyValue(TokenType.SQUIGGLY_OPEN);
       case '=':
         advance();
-        return token(TokenType.EQUALS);
+        return emptyValue(TokenType.EQUALS);
 
       case '"':
       case '\'':
@@ -226,81 +399,189 @@ public class TokenStream {
     }
   }
 
-  private Token readUntilWhitespace() {
-    StringBuffer buffer = new StringBuffer();
+  /** {@link TokenType#ordinal()} of the current token */
+  public int tokenType() {
+    return tokenType;
+  }
 
-    while (isValidUnquotedStringChar(currentChar)) {
-      buffer.appendCodePoint(currentChar);
-      advance();
+  /** Input index of the first char of the current token */
+  public int tokenStart() {
+    return tokenStart;
+  }
+
+  /** Input index right after the current token */
+  public int tokenEnd() {
+    return tokenEnd;
+  }
+
+  public int tokenLine() {
+    return lines.line(tokenStart);
+  }
+
+  public int tokenColumn() {
+    return lines.column(tokenStart);
+  }
+
+  public Location tokenLocation() {
+    return lines.location(tokenStart);
+  }
+
+  /**
+   * Gets the current token's text as a view of the input, or of an internal
+   * buffer for quoted strings with escapes. The view is only valid until the
+   * next token is read, use {@link #tokenString()} to keep it.
+   * <p>
+   * Tokens without text, like braces, have an empty text.
+   */
+  public CharSequence tokenText() {
+    if (valueStart < 0) {
+      return "";
+    }
+
+    if (decoded) {
+      return textBuffer;
     }
 
-    return token(TokenType.IDENTIFIER, buffer.toString());
+    if (input.isCharIndexed()) {
+      textView.set(valueStart, valueEnd);
+      return textView;
+    }
+
+    // Not char indexed, decode the span
+    textBuffer.setLength(0);
+    for (int i = valueStart; i < valueEnd; i = input.next(i)) {
+      textBuffer.appendCodePoint(input.charAt(i));
+    }
+
+    return textBuffer;
   }
 
-  private static boolean isValidUnquotedStringChar(int ch) {
-    if (ch == '=' || ch == ')') {
-      return false;
+  /**
+   * Gets the current token's text as a string. Tag and attribute names come
+   * from the symbol table, so repeated ones don't allocate, texts and
+   * attribute values are always copied. Returns null for tokens without
+   * text.
+   */
+  public String tokenString() {
+    if (valueStart < 0) {
+      return null;
+    }
+
+    if (decoded) {
+      return textBuffer.toString();
+    }
+
+    // Values are mostly unique, interning them would only fill the table
+    if (tokenType == TokenType.SEQUENCE.ordinal() || attributeValue) {
+      return input.substring(valueStart, valueEnd);
+    }
+
+    return symbols.intern(input, valueStart, valueEnd);
+  }
+
+  private TokenType emptyValue(TokenType type) {
+    valueStart = -1;
+    valueEnd = -1;
+    return type;
+  }
+
+  private TokenType value(TokenType type, int start, int end) {
+    valueStart = start;
+    valueEnd = end;
+    return type;
+  }
+
+  private TokenType readUntilWhitespace() {
+    int start = cursor;
+
+    while (isUnquotedStringChar(currentChar)) {
+      advance();
     }
-    return !Character.isWhitespace(ch);
+
+    return value(TokenType.IDENTIFIER, start, cursor);
   }
 
-  private Token readQuotedString() {
+  private TokenType readQuotedString() {
     int quote = currentChar;
     advance();
 
-    StringBuffer buf = new StringBuffer();
-    boolean escaped = false;
+    int start = cursor;
+    sawCR = false;
 
     while (true) {
-      if (currentChar == quote) {
-        advance();
-
-        if (escaped) {
-          buf.appendCodePoint(currentChar);
-          escaped = false;
-          continue;
-        }
+      skipPlainQuoted(quote);
 
+      if (currentChar == quote || currentChar == '\\' || currentChar == EOF) {
         break;
       }
 
-      if (currentChar == '\\') {
-        advance();
+      advance();
+    }
 
-        if (escaped) {
-          buf.append('\\');
-          escaped = false;
-        } else {
-          escaped = true;
-        }
+    if (currentChar == quote) {
+      int end = cursor;
+      advance();
 
-        continue;
+      if (sawCR) {
+        return decodedSpan(TokenType.QUOTED_STRING, start, end);
       }
 
-      if (escaped) {
-        escaped = false;
-        int ch = currentChar;
+      return value(TokenType.QUOTED_STRING, start, end);
+    }
+
+    // Only strings with escapes need to be decoded char by char
+    StringBuilder buf = textBuffer;
+    buf.setLength(0);
+    appendSpan(start, cursor);
 
+    while (true) {
+      if (currentChar == EOF) {
+        errors.error(location(), "Unterminated quoted string");
+        break;
+      }
+
+      if (currentChar == quote) {
         advance();
+        break;
+      }
 
-        switch (ch) {
-          case 't', 'T' -> buf.append("\t");
-          case 'n', 'N' -> buf.append("\n");
-          case 'r', 'R' -> buf.append("\r");
-          case 'u', 'U' -> buf.append(readHexChar());
+      if (currentChar != '\\') {
+        buf.appendCodePoint(currentChar);
+        advance();
+        continue;
+      }
 
-          default -> {
-            errors.error(location(), "Invalid escape sequence");
-            continue;
-          }
-        };
+      Location escapeStart = location();
+      advance();
+
+      int ch = currentChar;
+      if (ch == EOF) {
+        continue;
       }
 
-      buf.appendCodePoint(currentChar);
       advance();
+
+      switch (ch) {
+        case '\\' -> buf.append('\\');
+        case 't', 'T' -> buf.append('\t');
+        case 'n', 'N' -> buf.append('\n');
+        case 'r', 'R' -> buf.append('\r');
+        case 'u', 'U' -> buf.append(readHexChar());
+
+        default -> {
+          if (ch == quote) {
+            buf.appendCodePoint(quote);
+          } else {
+            errors.error(escapeStart, "Invalid escape sequence");
+          }
+        }
+      }
     }
 
-    return token(TokenType.QUOTED_STRING, buf.toString());
+    valueStart = start;
+    valueEnd = cursor;
+    decoded = true;
+    return TokenType.QUOTED_STRING;
   }
 
   private String readHexChar() {
@@ -314,6 +595,7 @@ public class TokenStream {
     String sub = input.substring(start, cursor);
     if (sub.length() != 4) {
       errors.error(location, "Invalid hex sequence");
+      return sub.isEmpty() ? "" : Character.toString(Utf8Input.REPLACEMENT);
     }
 
     int i = Integer.parseUnsignedInt(sub, 16);
@@ -326,92 +608,151 @@ public class TokenStream {
         || (ch >= 'A' && ch <= 'F');
   }
 
-  private String readSequence() {
-    StringBuffer buf = new StringBuffer();
+  private TokenType readSequence() {
+    int start = cursor;
+    sawCR = false;
+
+    while (true) {
+      skipPlainText();
+
+      if (!isValidSequenceChar()) {
+        break;
+      }
 
-    while (isValidSequenceChar()) {
-      buf.appendCodePoint(currentChar);
       advance();
     }
 
-    return buf.toString();
+    if (sawCR) {
+      return decodedSpan(TokenType.SEQUENCE, start, cursor);
+    }
+
+    return value(TokenType.SEQUENCE, start, cursor);
+  }
+
+  // Jumps over text up to the last char before the next stop char, leaving
+  // the stop char itself to advance()
+  private void skipPlainQuoted(int quote) {
+    int stop = input.scanQuoted(quote, cursor, cursor + BodyScanner.SCAN_CHUNK);
+    jumpTo(stop - 1);
+  }
+
+  // Jumps over body text that can't contain a tag start or a closing brace
+  private void skipPlainText() {
+    if (cursor < textScanFrom || cursor >= textStop) {
+      int stop = input.scanText(cursor, cursor + BodyScanner.SCAN_CHUNK);
+
+      textScanFrom = cursor;
+      textStop = stop;
+      plainUntil = BodyScanner.plainEnd(input, cursor, stop);
+    }
+
+    jumpTo(plainUntil);
+  }
+
+  // Moves the cursor forward without looking at the chars in between. Only
+  // used with indices returned by the input's scan methods, which never skip
+  // line breaks
+  private void jumpTo(int index) {
+    if (index <= cursor) {
+      return;
+    }
+
+    cursor = index;
+    currentChar = charAt(index);
   }
 
   private boolean isValidSequenceChar() {
-    if (isTagStart()) {
+    if (currentChar == '}' || currentChar == EOF) {
       return false;
     }
-    if (currentChar == '}') {
+    if (isTagStart()) {
       return false;
     }
 
     return true;
   }
 
-  private Token readTagName() {
-    StringBuffer buf = new StringBuffer();
+  private TokenType readTagName() {
+    int start = cursor;
+
     while (isNameChar(currentChar)) {
-      buf.appendCodePoint(currentChar);
       advance();
     }
 
-    return token(TokenType.TAG_NAME, buf.toString());
+    return value(TokenType.TAG_NAME, start, cursor);
   }
 
-  public boolean isTagStart() {
-    if (!isNameStartChar(currentChar)) {
-      return false;
-    }
+  private TokenType decodedSpan(TokenType type, int start, int end) {
+    textBuffer.setLength(0);
+    appendSpan(start, end);
 
-    int c = cursor + 1;
-    while (isNameChar(charAt(c))) {
-      c++;
-    }
+    valueStart = start;
+    valueEnd = end;
+    decoded = true;
+    return type;
+  }
 
-    while (Character.isWhitespace(charAt(c))) {
-      c++;
-    }
+  // Appends the input from start to end, with line breaks normalized the
+  // same way advance() normalizes them
+  private void appendSpan(int start, int end) {
+    int i = start;
 
-    int ch = charAt(c);
-    return ch == '{' || ch == '(';
-  }
+    while (i < end) {
+      int ch = charAt(i);
+      i = input.next(i);
 
-  private static boolean isNameChar(int ch) {
-    return isNameStartChar(ch)
-        || ch == '-'
-        || ch == '.'
-        || (ch >= '0' && ch <= '9')
-        || ch == '\u00b7'
-        || (ch >= '\u0300' && ch <= '\u036f')
-        || (ch >= '\u203f' && ch <= '\u2040');
-  }
+      if (ch == CR) {
+        if (i < end && charAt(i) == LF) {
+          i = input.next(i);
+        }
+        ch = LF;
+      }
 
-  private static boolean isNameStartChar(int ch) {
-    return (ch >= 'a' && ch <= 'z')
-        || (ch >= 'A' && ch <= 'Z')
-        || ch == '_'
-        || ch == ':'
-        || ch == '@'
-        || ch == '$'
-        || (ch >= '\u2070' && ch <= '\u218F')
-        || (ch >= '\u2c00' && ch <= '\u2fef')
-        || (ch >= '\u3001' && ch <= '\ud7ff')
-        || (ch >= '\uf900' && ch <= '\ufdcf')
-        || (ch >= '\ufdf0' && ch <= '\ufffd');
+      textBuffer.appendCodePoint(ch);
+    }
   }
 
-  private Token token(TokenType type) {
-    return token(type, null);
+  public boolean isTagStart() {
+    return body.isTagStart(input, cursor, currentChar);
   }
 
-  private Token token(TokenType type, String value) {
-    Location start = lastTokenStart;
-    Location end = location();
+  // Reusable view of the current token's span in the input
+  private class InputView implements CharSequence {
 
-    if (start == null) {
-      start = location();
+    private int start;
+    private int end;
+
+    void set(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length()) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      return (char) input.charAt(start + index);
     }
 
-    return new Token(type, value, start, end);
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return input.substring(this.start + start, this.start + end);
+    }
+
+    @Override
+    public String toString() {
+      return input.substring(start, end);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "TokenStream[" + preCursor() + "|" + postCursor() + "]";
   }
 }
@@ -15,6 +15,9 @@ public enum TokenType {
   EQUALS ("="),
   ;
 
+  // values() copies the array on every call
+  static final TokenType[] VALUES = values();
+
   private final String string;
 
   TokenType(String string) {
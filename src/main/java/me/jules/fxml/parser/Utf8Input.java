@@ -0,0 +1,145 @@
+package me.jules.fxml.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+final class Utf8Input implements CharInput {
+
+  static final int REPLACEMENT = 0xFFFD;
+
+  private final ByteBuffer bytes;
+  private final int length;
+
+  Utf8Input(ByteBuffer bytes) {
+    // Skip the byte order mark, if there is one
+    if (bytes.limit() >= 3
+        && bytes.get(0) == (byte) 0xEF
+        && bytes.get(1) == (byte) 0xBB
+        && bytes.get(2) == (byte) 0xBF
+    ) {
+      bytes = bytes.slice(3, bytes.limit() - 3);
+    }
+
+    this.bytes = bytes;
+    this.length = bytes.limit();
+  }
+
+  @Override
+  public int charAt(int index) {
+    if (index < 0 || index >= length) {
+      return EOF;
+    }
+
+    int b = bytes.get(index);
+
+    // ASCII, this covers all structural characters
+    if (b >= 0) {
+      return b;
+    }
+
+    int width = width(b);
+    if (width == 1 || validEnd(index, b, width) != index + width) {
+      return REPLACEMENT;
+    }
+
+    int cp = b & (0xFF >> (width + 1));
+
+    for (int i = 1; i < width; i++) {
+      cp = (cp << 6) | (bytes.get(index + i) & 0x3F);
+    }
+
+    // Encoded surrogates (ED A0 80 to ED BF BF) are replaced as a whole
+    return cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE ? REPLACEMENT : cp;
+  }
+
+  @Override
+  public int next(int index) {
+    if (index < 0 || index >= length) {
+      return index + 1;
+    }
+
+    int b = bytes.get(index);
+    if (b >= 0) {
+      return index + 1;
+    }
+
+    // A broken sequence ends at the first byte that can't continue it,
+    // which may be a structural char
+    return validEnd(index, b, width(b));
+  }
+
+  @Override
+  public boolean isCharIndexed() {
+    return false;
+  }
+
+  // Byte length of a sequence with the specified lead byte, 1 for
+  // continuation bytes and invalid lead bytes. C0 and C1 can only start
+  // overlong encodings, F5 and up only code points above U+10FFFF.
+  private static int width(int lead) {
+    int b = lead & 0xFF;
+
+    if (b >= 0xC2 && b <= 0xDF) {
+      return 2;
+    }
+    if ((b & 0xF0) == 0xE0) {
+      return 3;
+    }
+    if (b >= 0xF0 && b <= 0xF4) {
+      return 4;
+    }
+    return 1;
+  }
+
+  // End of the valid part of the sequence starting at index, index + width
+  // if it's complete. Like the JDK's decoder, a broken sequence is replaced
+  // as a whole up to the first byte that can't continue it. The second byte
+  // is restricted after E0, F0 and F4, which rules out overlong encodings
+  // and code points above U+10FFFF.
+  private int validEnd(int index, int lead, int width) {
+    for (int i = 1; i < width; i++) {
+      if (index + i >= length) {
+        return index + i;
+      }
+
+      int b = bytes.get(index + i) & 0xFF;
+      int min = 0x80;
+      int max = 0xBF;
+
+      if (i == 1) {
+        switch (lead & 0xFF) {
+          case 0xE0 -> min = 0xA0;
+          case 0xF0 -> min = 0x90;
+          case 0xF4 -> max = 0x8F;
+          default -> { }
+        }
+      }
+
+      if (b < min || b > max) {
+        return index + i;
+      }
+    }
+
+    return index + width;
+  }
+
+  @Override
+  public String substring(int start, int end) {
+    int s = Math.max(0, start);
+    int e = Math.min(length, end);
+
+    if (s >= e) {
+      return "";
+    }
+
+    byte[] arr = new byte[e - s];
+    bytes.get(s, arr);
+
+    return new String(arr, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return substring(0, length);
+  }
+}
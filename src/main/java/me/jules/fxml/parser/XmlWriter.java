@@ -0,0 +1,226 @@
+package me.jules.fxml.parser;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import me.jules.fxml.Fxml;
+
+/**
+ * Writes parser events as XML text as they come, so FXML can be transcoded
+ * to XML without building a DOM. Only the pending start tag and its
+ * attributes are held back, to write elements without content as empty tags
+ * and repeated attributes once, with their last value, like the DOM does.
+ * <p>
+ * Chars XML 1.0 can't hold, and FXML names that aren't XML names, are
+ * rejected with an {@link IllegalArgumentException}.
+ */
+public class XmlWriter implements DocumentHandler {
+
+  private final Appendable out;
+
+  private String pendingElement;
+  private final Map<String, String> pendingAttributes = new LinkedHashMap<>();
+
+  public XmlWriter(Appendable out) {
+    this.out = Objects.requireNonNull(out, "Null output");
+  }
+
+  /** Transcodes FXML input to XML, in a single pass */
+  public static void transcode(CharInput input, Appendable out) {
+    Fxml.parse(input, new XmlWriter(out));
+  }
+
+  @Override
+  public void startDocument() {
+    append("<?xml version=\"1.0\"?>\n");
+  }
+
+  @Override
+  public void startElement(String name, Location location) {
+    closeStartTag();
+    checkName(name);
+
+    pendingElement = name;
+  }
+
+  @Override
+  public void attribute(String name, String value, Location location) {
+    checkName(name);
+    pendingAttributes.put(name, value);
+  }
+
+  @Override
+  public void text(String text, Location location) {
+    closeStartTag();
+    escape(text, false);
+  }
+
+  @Override
+  public void endElement(String name, Location location) {
+    if (pendingElement != null) {
+      writeStartTag();
+      append("/>");
+      return;
+    }
+
+    append("</");
+    append(name);
+    append(">");
+  }
+
+  @Override
+  public void endDocument() {
+    append("\n");
+
+    if (out instanceof Flushable flushable) {
+      try {
+        flushable.flush();
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+    }
+  }
+
+  private void closeStartTag() {
+    if (pendingElement != null) {
+      writeStartTag();
+      append(">");
+    }
+  }
+
+  private void writeStartTag() {
+    append("<");
+    append(pendingElement);
+
+    for (Map.Entry<String, String> attr : pendingAttributes.entrySet()) {
+      append(" ");
+      append(attr.getKey());
+      append("=\"");
+      escape(attr.getValue(), true);
+      append("\"");
+    }
+
+    pendingElement = null;
+    pendingAttributes.clear();
+  }
+
+  private void escape(String str, boolean attribute) {
+    int plainStart = 0;
+
+    for (int i = 0; i < str.length(); i++) {
+      char ch = str.charAt(i);
+      String replacement;
+
+      switch (ch) {
+        case '<' -> replacement = "&lt;";
+        case '&' -> replacement = "&amp;";
+        case '>' -> replacement = "&gt;";
+        case '"' -> replacement = attribute ? "&quot;" : null;
+
+        // Attribute values have their whitespace normalized unless it's
+        // written as a reference
+        case '\n' -> replacement = attribute ? "&#10;" : null;
+        case '\t' -> replacement = attribute ? "&#9;" : null;
+        case '\r' -> replacement = "&#13;";
+
+        default -> {
+          checkChar(str, i);
+          replacement = null;
+        }
+      }
+
+      if (replacement == null) {
+        continue;
+      }
+
+      append(str, plainStart, i);
+      append(replacement);
+      plainStart = i + 1;
+    }
+
+    append(str, plainStart, str.length());
+  }
+
+  private static void checkChar(String str, int i) {
+    char ch = str.charAt(i);
+
+    boolean valid;
+
+    if (Character.isHighSurrogate(ch)) {
+      valid = i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1));
+    } else if (Character.isLowSurrogate(ch)) {
+      valid = i > 0 && Character.isHighSurrogate(str.charAt(i - 1));
+    } else {
+      valid = ch >= 0x20 && ch != 0xFFFE && ch != 0xFFFF;
+    }
+
+    if (!valid) {
+      throw new IllegalArgumentException(
+          String.format("Char U+%04X at index %s can't be written in XML", (int) ch, i)
+      );
+    }
+  }
+
+  private static void checkName(String name) {
+    boolean valid = !name.isEmpty();
+
+    for (int i = 0; i < name.length() && valid; ) {
+      int cp = name.codePointAt(i);
+      valid = i == 0 ? isNameStartChar(cp) : isNameStartChar(cp) || isNameChar(cp);
+      i += Character.charCount(cp);
+    }
+
+    if (!valid) {
+      throw new IllegalArgumentException("Not a valid XML name: '" + name + "'");
+    }
+  }
+
+  // XML 1.0 name chars, element names from FXML only fail this with the '@'
+  // and '$' FXML also allows, but attribute names can be any quoted string
+  private static boolean isNameStartChar(int cp) {
+    return (cp >= 'a' && cp <= 'z')
+        || (cp >= 'A' && cp <= 'Z')
+        || cp == ':'
+        || cp == '_'
+        || (cp >= 0xC0 && cp <= 0xD6)
+        || (cp >= 0xD8 && cp <= 0xF6)
+        || (cp >= 0xF8 && cp <= 0x2FF)
+        || (cp >= 0x370 && cp <= 0x37D)
+        || (cp >= 0x37F && cp <= 0x1FFF)
+        || (cp >= 0x200C && cp <= 0x200D)
+        || (cp >= 0x2070 && cp <= 0x218F)
+        || (cp >= 0x2C00 && cp <= 0x2FEF)
+        || (cp >= 0x3001 && cp <= 0xD7FF)
+        || (cp >= 0xF900 && cp <= 0xFDCF)
+        || (cp >= 0xFDF0 && cp <= 0xFFFD)
+        || (cp >= 0x10000 && cp <= 0xEFFFF);
+  }
+
+  private static boolean isNameChar(int cp) {
+    return cp == '-'
+        || cp == '.'
+        || (cp >= '0' && cp <= '9')
+        || cp == 0xB7
+        || (cp >= 0x300 && cp <= 0x36F)
+        || (cp >= 0x203F && cp <= 0x2040);
+  }
+
+  private void append(CharSequence str) {
+    append(str, 0, str.length());
+  }
+
+  private void append(CharSequence str, int start, int end) {
+    if (start == end) {
+      return;
+    }
+
+    try {
+      out.append(str, start, end);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+}
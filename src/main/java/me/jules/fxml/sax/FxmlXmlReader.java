@@ -0,0 +1,192 @@
+package me.jules.fxml.sax;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+import me.jules.fxml.parser.CharInput;
+import me.jules.fxml.parser.Parser;
+import me.jules.fxml.parser.TokenStream;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+
+public class FxmlXmlReader implements XMLReader {
+
+  static final String FEATURE_NAMESPACES = "http://xml.org/sax/features/namespaces";
+  static final String FEATURE_NAMESPACE_PREFIXES = "http://xml.org/sax/features/namespace-prefixes";
+
+  private ContentHandler contentHandler;
+  private ErrorHandler errorHandler;
+  private DTDHandler dtdHandler;
+  private EntityResolver entityResolver;
+
+  private boolean namespaces = true;
+  private boolean namespacePrefixes = false;
+
+  @Override
+  public boolean getFeature(String name)
+      throws SAXNotRecognizedException, SAXNotSupportedException
+  {
+    return switch (name) {
+      case FEATURE_NAMESPACES -> namespaces;
+      case FEATURE_NAMESPACE_PREFIXES -> namespacePrefixes;
+      default -> throw new SAXNotRecognizedException(name);
+    };
+  }
+
+  @Override
+  public void setFeature(String name, boolean value)
+      throws SAXNotRecognizedException, SAXNotSupportedException
+  {
+    switch (name) {
+      case FEATURE_NAMESPACES -> namespaces = value;
+      case FEATURE_NAMESPACE_PREFIXES -> namespacePrefixes = value;
+      default -> throw new SAXNotRecognizedException(name);
+    }
+  }
+
+  @Override
+  public Object getProperty(String name)
+      throws SAXNotRecognizedException, SAXNotSupportedException
+  {
+    throw new SAXNotRecognizedException(name);
+  }
+
+  @Override
+  public void setProperty(String name, Object value)
+      throws SAXNotRecognizedException, SAXNotSupportedException
+  {
+    throw new SAXNotRecognizedException(name);
+  }
+
+  @Override
+  public void setEntityResolver(EntityResolver resolver) {
+    this.entityResolver = resolver;
+  }
+
+  @Override
+  public EntityResolver getEntityResolver() {
+    return entityResolver;
+  }
+
+  @Override
+  public void setDTDHandler(DTDHandler handler) {
+    this.dtdHandler = handler;
+  }
+
+  @Override
+  public DTDHandler getDTDHandler() {
+    return dtdHandler;
+  }
+
+  @Override
+  public void setContentHandler(ContentHandler handler) {
+    this.contentHandler = handler;
+  }
+
+  @Override
+  public ContentHandler getContentHandler() {
+    return contentHandler;
+  }
+
+  @Override
+  public void setErrorHandler(ErrorHandler handler) {
+    this.errorHandler = handler;
+  }
+
+  @Override
+  public ErrorHandler getErrorHandler() {
+    return errorHandler;
+  }
+
+  @Override
+  public void parse(String systemId) throws IOException, SAXException {
+    parse(new InputSource(systemId));
+  }
+
+  @Override
+  public void parse(InputSource source) throws IOException, SAXException {
+    Objects.requireNonNull(source, "Null source");
+
+    // Streams from the source belong to the caller and are left open, only
+    // the one opened for a system ID is closed here
+    Reader reader = sourceReader(source);
+
+    try (Reader opened = reader == null ? openSystemId(source) : null) {
+      CharInput input = CharInput.of(reader == null ? opened : reader);
+
+      SaxListener listener = new SaxListener(source, errorHandler);
+      SaxEmitter emitter = new SaxEmitter(
+          contentHandler,
+          errorHandler,
+          source.getSystemId(),
+          source.getPublicId(),
+          namespaces,
+          namespacePrefixes
+      );
+
+      TokenStream stream = new TokenStream(input, listener);
+      Parser parser = new Parser(stream, listener);
+
+      try {
+        parser.parse(emitter);
+      } catch (SaxAbort abort) {
+        throw abort.getCause();
+      }
+    }
+  }
+
+  private static Reader sourceReader(InputSource source) {
+    if (source.getCharacterStream() != null) {
+      return source.getCharacterStream();
+    }
+
+    if (source.getByteStream() != null) {
+      return new InputStreamReader(source.getByteStream(), charset(source));
+    }
+
+    return null;
+  }
+
+  private static Reader openSystemId(InputSource source) throws IOException, SAXException {
+    String systemId = source.getSystemId();
+    if (systemId == null) {
+      throw new SAXException("Input source has no character stream, byte stream or system ID");
+    }
+
+    URI uri;
+    try {
+      uri = new URI(systemId);
+    } catch (URISyntaxException exc) {
+      throw new SAXException("Invalid system ID: " + systemId, exc);
+    }
+
+    // Streamed through a reader's window rather than mapped, a mapping can't
+    // be released once the parse is done
+    URL url = uri.isAbsolute() ? uri.toURL() : Path.of(systemId).toUri().toURL();
+    return new InputStreamReader(url.openStream(), charset(source));
+  }
+
+  private static Charset charset(InputSource source) {
+    String encoding = source.getEncoding();
+
+    if (encoding == null) {
+      return StandardCharsets.UTF_8;
+    }
+
+    return Charset.forName(encoding);
+  }
+}
@@ -0,0 +1,18 @@
+package me.jules.fxml.sax;
+
+import org.xml.sax.SAXException;
+
+// Carries a SAXException out through the parser, whose callbacks can't
+// throw checked exceptions
+@SuppressWarnings("serial")
+class SaxAbort extends RuntimeException {
+
+  SaxAbort(SAXException cause) {
+    super(cause.getMessage(), cause, false, false);
+  }
+
+  @Override
+  public synchronized SAXException getCause() {
+    return (SAXException) super.getCause();
+  }
+}
@@ -0,0 +1,243 @@
+package me.jules.fxml.sax;
+
+import java.util.Enumeration;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.Location;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.LocatorImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+// Translates parser events into SAX events. SAX wants an element's attributes
+// together with its start tag, so the start tag is held back until the first
+// event that isn't an attribute.
+//
+// With namespace processing on, xmlns attributes declare prefixes like in
+// XML, and element and attribute names are split into a namespace URI and a
+// local name. Without it, names are passed on as they are.
+class SaxEmitter implements DocumentHandler {
+
+  static final String CDATA = "CDATA";
+  static final String XMLNS = "xmlns";
+
+  private final ContentHandler handler;
+  private final ErrorHandler errorHandler;
+  private final LocatorImpl locator = new LocatorImpl();
+  private final AttributesImpl attributes = new AttributesImpl();
+
+  // Null if namespace processing is off
+  private final NamespaceSupport namespaces;
+  private final boolean namespacePrefixes;
+  private final AttributesImpl resolved = new AttributesImpl();
+  private final String[] parts = new String[3];
+
+  private String pendingElement;
+
+  SaxEmitter(
+      ContentHandler handler,
+      ErrorHandler errorHandler,
+      String systemId,
+      String publicId,
+      boolean namespaces,
+      boolean namespacePrefixes
+  ) {
+    this.handler = handler;
+    this.errorHandler = errorHandler;
+    this.namespaces = namespaces ? new NamespaceSupport() : null;
+    this.namespacePrefixes = namespacePrefixes;
+
+    locator.setSystemId(systemId);
+    locator.setPublicId(publicId);
+  }
+
+  @Override
+  public void startDocument() {
+    if (handler == null) {
+      return;
+    }
+
+    try {
+      handler.setDocumentLocator(locator);
+      handler.startDocument();
+    } catch (SAXException exc) {
+      throw new SaxAbort(exc);
+    }
+  }
+
+  @Override
+  public void startElement(String name, Location location) {
+    flushStartElement();
+    moveTo(location);
+
+    pendingElement = name;
+  }
+
+  @Override
+  public void attribute(String name, String value, Location location) {
+    attributes.addAttribute("", name, name, CDATA, value);
+  }
+
+  @Override
+  public void text(String text, Location location) {
+    flushStartElement();
+    moveTo(location);
+
+    if (handler == null) {
+      return;
+    }
+
+    try {
+      handler.characters(text.toCharArray(), 0, text.length());
+    } catch (SAXException exc) {
+      throw new SaxAbort(exc);
+    }
+  }
+
+  @Override
+  public void endElement(String name, Location location) {
+    flushStartElement();
+    moveTo(location);
+
+    if (handler == null) {
+      return;
+    }
+
+    try {
+      if (namespaces == null) {
+        handler.endElement("", name, name);
+        return;
+      }
+
+      String[] element = resolve(name, false);
+      handler.endElement(element[0], element[1], element[2]);
+
+      Enumeration<String> prefixes = namespaces.getDeclaredPrefixes();
+      while (prefixes.hasMoreElements()) {
+        handler.endPrefixMapping(prefixes.nextElement());
+      }
+
+      namespaces.popContext();
+    } catch (SAXException exc) {
+      throw new SaxAbort(exc);
+    }
+  }
+
+  @Override
+  public void endDocument() {
+    if (handler == null) {
+      return;
+    }
+
+    try {
+      handler.endDocument();
+    } catch (SAXException exc) {
+      throw new SaxAbort(exc);
+    }
+  }
+
+  private void flushStartElement() {
+    if (pendingElement == null) {
+      return;
+    }
+
+    String name = pendingElement;
+    pendingElement = null;
+
+    if (handler != null) {
+      try {
+        if (namespaces == null) {
+          handler.startElement("", name, name, attributes);
+        } else {
+          startNamespaced(name);
+        }
+      } catch (SAXException exc) {
+        throw new SaxAbort(exc);
+      }
+    }
+
+    attributes.clear();
+  }
+
+  private void startNamespaced(String name) throws SAXException {
+    namespaces.pushContext();
+
+    // Declarations first, they apply to the element's own name and attributes
+    for (int i = 0; i < attributes.getLength(); i++) {
+      String prefix = declaredPrefix(attributes.getQName(i));
+
+      if (prefix == null) {
+        continue;
+      }
+
+      String uri = attributes.getValue(i);
+      if (!namespaces.declarePrefix(prefix, uri)) {
+        fatalError("Invalid namespace declaration '" + attributes.getQName(i) + "'");
+      }
+
+      handler.startPrefixMapping(prefix, uri);
+    }
+
+    resolved.clear();
+
+    for (int i = 0; i < attributes.getLength(); i++) {
+      String qName = attributes.getQName(i);
+
+      if (declaredPrefix(qName) != null) {
+        if (namespacePrefixes) {
+          resolved.addAttribute("", "", qName, CDATA, attributes.getValue(i));
+        }
+        continue;
+      }
+
+      String[] attr = resolve(qName, true);
+      resolved.addAttribute(attr[0], attr[1], attr[2], CDATA, attributes.getValue(i));
+    }
+
+    String[] element = resolve(name, false);
+    handler.startElement(element[0], element[1], element[2], resolved);
+  }
+
+  // Prefix an xmlns attribute declares, empty for the default namespace, or
+  // null if the attribute isn't a declaration
+  private static String declaredPrefix(String qName) {
+    if (!qName.startsWith(XMLNS)) {
+      return null;
+    }
+    if (qName.length() == XMLNS.length()) {
+      return "";
+    }
+    if (qName.charAt(XMLNS.length()) == ':') {
+      return qName.substring(XMLNS.length() + 1);
+    }
+    return null;
+  }
+
+  private String[] resolve(String qName, boolean attribute) throws SAXException {
+    if (namespaces.processName(qName, parts, attribute) == null) {
+      fatalError("Undeclared namespace prefix in '" + qName + "'");
+    }
+    return parts;
+  }
+
+  private void fatalError(String message) throws SAXException {
+    SAXParseException exc = new SAXParseException(message, locator);
+
+    if (errorHandler != null) {
+      errorHandler.fatalError(exc);
+    }
+
+    throw exc;
+  }
+
+  private void moveTo(Location location) {
+    if (location == null) {
+      return;
+    }
+
+    locator.setLineNumber(location.line() + 1);
+    locator.setColumnNumber(location.column() + 1);
+  }
+}
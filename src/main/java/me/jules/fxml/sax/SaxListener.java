@@ -0,0 +1,73 @@
+package me.jules.fxml.sax;
+
+import me.jules.fxml.parser.Location;
+import me.jules.fxml.parser.ParserListener;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+class SaxListener implements ParserListener {
+
+  private final InputSource source;
+  private final ErrorHandler errorHandler;
+
+  SaxListener(InputSource source, ErrorHandler errorHandler) {
+    this.source = source;
+    this.errorHandler = errorHandler;
+  }
+
+  @Override
+  public void warn(Location location, String format, Object... args) {
+    if (errorHandler == null) {
+      return;
+    }
+
+    try {
+      errorHandler.warning(exception(location, format, args));
+    } catch (SAXException exc) {
+      throw new SaxAbort(exc);
+    }
+  }
+
+  @Override
+  public void warn(String format, Object... args) {
+    warn(null, format, args);
+  }
+
+  @Override
+  public void error(Location location, String format, Object... args) {
+    SAXParseException exc = exception(location, format, args);
+
+    if (errorHandler != null) {
+      try {
+        errorHandler.fatalError(exc);
+      } catch (SAXException thrown) {
+        throw new SaxAbort(thrown);
+      }
+    }
+
+    throw new SaxAbort(exc);
+  }
+
+  @Override
+  public void error(String format, Object... args) {
+    error(null, format, args);
+  }
+
+  private SAXParseException exception(Location location, String format, Object... args) {
+    String message = format.formatted(args);
+
+    if (location == null) {
+      return new SAXParseException(message, source.getPublicId(), source.getSystemId(), -1, -1);
+    }
+
+    return new SAXParseException(
+        message,
+        source.getPublicId(),
+        source.getSystemId(),
+        location.line() + 1,
+        location.column() + 1
+    );
+  }
+}
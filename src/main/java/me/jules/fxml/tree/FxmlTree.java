@@ -0,0 +1,297 @@
+package me.jules.fxml.tree;
+
+import java.util.Map;
+import java.util.Objects;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.DomBuilder;
+import me.jules.fxml.parser.Location;
+import org.w3c.dom.Document;
+
+/**
+ * Immutable document tree stored in parallel int arrays. Nodes are identified
+ * by their preorder index, the root element is always node 0. Names are kept
+ * in a symbol table and can be compared by ID, text and attribute values are
+ * spans of a single shared string.
+ * <p>
+ * That string holds the values as parsed, not the source text. Values can
+ * differ from their source, with escapes decoded and line breaks
+ * normalized, and streaming inputs don't keep their source around. Nodes
+ * and attributes do keep their source position, with the line and column
+ * resolved while the tree is built.
+ * <p>
+ * Instances are never modified after construction and can be read from any
+ * number of threads.
+ */
+public final class FxmlTree {
+
+  public static final int NONE = -1;
+
+  // Name ID of text nodes
+  static final int TEXT = -1;
+
+  private final int size;
+
+  private final int[] parent;
+  private final int[] firstChild;
+  private final int[] nextSibling;
+  private final int[] name;
+  private final int[] textStart;
+  private final int[] textEnd;
+  private final int[] offset;
+  private final int[] line;
+  private final int[] column;
+  private final int[] attrStart;
+  private final int[] attrCount;
+
+  private final int[] attrName;
+  private final int[] attrValueStart;
+  private final int[] attrValueEnd;
+  private final int[] attrOffset;
+  private final int[] attrLine;
+  private final int[] attrColumn;
+
+  private final String[] names;
+  private final Map<String, Integer> nameIds;
+  private final String content;
+
+  FxmlTree(
+      int size,
+      int[] parent,
+      int[] firstChild,
+      int[] nextSibling,
+      int[] name,
+      int[] textStart,
+      int[] textEnd,
+      int[] offset,
+      int[] line,
+      int[] column,
+      int[] attrStart,
+      int[] attrCount,
+      int[] attrName,
+      int[] attrValueStart,
+      int[] attrValueEnd,
+      int[] attrOffset,
+      int[] attrLine,
+      int[] attrColumn,
+      String[] names,
+      Map<String, Integer> nameIds,
+      String content
+  ) {
+    this.size = size;
+    this.parent = parent;
+    this.firstChild = firstChild;
+    this.nextSibling = nextSibling;
+    this.name = name;
+    this.textStart = textStart;
+    this.textEnd = textEnd;
+    this.offset = offset;
+    this.line = line;
+    this.column = column;
+    this.attrStart = attrStart;
+    this.attrCount = attrCount;
+    this.attrName = attrName;
+    this.attrValueStart = attrValueStart;
+    this.attrValueEnd = attrValueEnd;
+    this.attrOffset = attrOffset;
+    this.attrLine = attrLine;
+    this.attrColumn = attrColumn;
+    this.names = names;
+    this.nameIds = nameIds;
+    this.content = content;
+  }
+
+  public static TreeBuilder builder() {
+    return new TreeBuilder();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int root() {
+    return size == 0 ? NONE : 0;
+  }
+
+  public int parent(int node) {
+    return parent[check(node)];
+  }
+
+  public int firstChild(int node) {
+    return firstChild[check(node)];
+  }
+
+  public int nextSibling(int node) {
+    return nextSibling[check(node)];
+  }
+
+  public boolean isElement(int node) {
+    return name[check(node)] != TEXT;
+  }
+
+  public boolean isText(int node) {
+    return name[check(node)] == TEXT;
+  }
+
+  public int nameId(int node) {
+    return name[check(node)];
+  }
+
+  public String name(int node) {
+    int id = name[check(node)];
+    return id == TEXT ? null : names[id];
+  }
+
+  public String text(int node) {
+    check(node);
+
+    if (name[node] != TEXT) {
+      return null;
+    }
+
+    return content.substring(textStart[node], textEnd[node]);
+  }
+
+  /**
+   * Gets the index in the source input the node started at
+   * @param node Node
+   * @return Source offset
+   */
+  public int offset(int node) {
+    return offset[check(node)];
+  }
+
+  public int line(int node) {
+    return line[check(node)];
+  }
+
+  public int column(int node) {
+    return column[check(node)];
+  }
+
+  public int attributeCount(int node) {
+    return attrCount[check(node)];
+  }
+
+  public int attributeNameId(int node, int index) {
+    return attrName[attrIndex(node, index)];
+  }
+
+  public String attributeName(int node, int index) {
+    return names[attrName[attrIndex(node, index)]];
+  }
+
+  public String attributeValue(int node, int index) {
+    int i = attrIndex(node, index);
+    return content.substring(attrValueStart[i], attrValueEnd[i]);
+  }
+
+  public String attribute(int node, String attributeName) {
+    int id = nameId(attributeName);
+    if (id == NONE) {
+      return null;
+    }
+
+    int start = attrStart[check(node)];
+    int end = start + attrCount[node];
+
+    // Last one wins, same as setting the attributes on a DOM element in order
+    for (int i = end - 1; i >= start; i--) {
+      if (attrName[i] == id) {
+        return content.substring(attrValueStart[i], attrValueEnd[i]);
+      }
+    }
+
+    return null;
+  }
+
+  public int nameCount() {
+    return names.length;
+  }
+
+  public String nameOf(int id) {
+    Objects.checkIndex(id, names.length);
+    return names[id];
+  }
+
+  /**
+   * Gets the ID of a name
+   * @param name Name
+   * @return Name ID, or {@link #NONE} if no element or attribute in this tree
+   *         has the name
+   */
+  public int nameId(String name) {
+    return nameIds.getOrDefault(name, NONE);
+  }
+
+  /**
+   * Appends the tree to a document, which should be empty
+   * @param document Document
+   * @return The document
+   */
+  public Document toDocument(Document document) {
+    replay(new DomBuilder(document));
+    return document;
+  }
+
+  public void replay(DocumentHandler handler) {
+    handler.startDocument();
+
+    int node = root();
+
+    while (node != NONE) {
+      if (name[node] == TEXT) {
+        handler.text(content.substring(textStart[node], textEnd[node]), location(node));
+      } else {
+        String elementName = names[name[node]];
+        handler.startElement(elementName, location(node));
+
+        int start = attrStart[node];
+        int end = start + attrCount[node];
+
+        for (int i = start; i < end; i++) {
+          handler.attribute(
+              names[attrName[i]],
+              content.substring(attrValueStart[i], attrValueEnd[i]),
+              new Location(attrLine[i], attrColumn[i], attrOffset[i])
+          );
+        }
+
+        if (firstChild[node] != NONE) {
+          node = firstChild[node];
+          continue;
+        }
+
+        handler.endElement(elementName, location(node));
+      }
+
+      while (node != NONE && nextSibling[node] == NONE) {
+        node = parent[node];
+
+        if (node != NONE) {
+          handler.endElement(names[name[node]], location(node));
+        }
+      }
+
+      if (node != NONE) {
+        node = nextSibling[node];
+      }
+    }
+
+    handler.endDocument();
+  }
+
+  // Where the node started, element ends aren't retained and are reported
+  // there too
+  private Location location(int node) {
+    return new Location(line[node], column[node], offset[node]);
+  }
+
+  private int check(int node) {
+    return Objects.checkIndex(node, size);
+  }
+
+  private int attrIndex(int node, int index) {
+    Objects.checkIndex(index, attrCount[check(node)]);
+    return attrStart[node] + index;
+  }
+}
@@ -0,0 +1,210 @@
+package me.jules.fxml.tree;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.Location;
+
+public class TreeBuilder implements DocumentHandler {
+
+  static final int INITIAL_CAPACITY = 64;
+
+  private int size = 0;
+
+  private int[] parent = new int[INITIAL_CAPACITY];
+  private int[] firstChild = new int[INITIAL_CAPACITY];
+  private int[] lastChild = new int[INITIAL_CAPACITY];
+  private int[] nextSibling = new int[INITIAL_CAPACITY];
+  private int[] name = new int[INITIAL_CAPACITY];
+  private int[] textStart = new int[INITIAL_CAPACITY];
+  private int[] textEnd = new int[INITIAL_CAPACITY];
+  private int[] offset = new int[INITIAL_CAPACITY];
+  private int[] line = new int[INITIAL_CAPACITY];
+  private int[] column = new int[INITIAL_CAPACITY];
+  private int[] attrStart = new int[INITIAL_CAPACITY];
+  private int[] attrCount = new int[INITIAL_CAPACITY];
+
+  private int attrSize = 0;
+  private int[] attrName = new int[INITIAL_CAPACITY];
+  private int[] attrValueStart = new int[INITIAL_CAPACITY];
+  private int[] attrValueEnd = new int[INITIAL_CAPACITY];
+  private int[] attrOffset = new int[INITIAL_CAPACITY];
+  private int[] attrLine = new int[INITIAL_CAPACITY];
+  private int[] attrColumn = new int[INITIAL_CAPACITY];
+
+  private final Map<String, Integer> nameIds = new HashMap<>();
+  private String[] names = new String[INITIAL_CAPACITY];
+  private int nameCount = 0;
+
+  private final StringBuilder content = new StringBuilder();
+
+  private int current = FxmlTree.NONE;
+  private FxmlTree tree;
+
+  TreeBuilder() {
+
+  }
+
+  public FxmlTree build() {
+    if (current != FxmlTree.NONE) {
+      throw new IllegalStateException("Unclosed element: " + names[name[current]]);
+    }
+
+    if (tree == null) {
+      tree = new FxmlTree(
+          size,
+          Arrays.copyOf(parent, size),
+          Arrays.copyOf(firstChild, size),
+          Arrays.copyOf(nextSibling, size),
+          Arrays.copyOf(name, size),
+          Arrays.copyOf(textStart, size),
+          Arrays.copyOf(textEnd, size),
+          Arrays.copyOf(offset, size),
+          Arrays.copyOf(line, size),
+          Arrays.copyOf(column, size),
+          Arrays.copyOf(attrStart, size),
+          Arrays.copyOf(attrCount, size),
+          Arrays.copyOf(attrName, attrSize),
+          Arrays.copyOf(attrValueStart, attrSize),
+          Arrays.copyOf(attrValueEnd, attrSize),
+          Arrays.copyOf(attrOffset, attrSize),
+          Arrays.copyOf(attrLine, attrSize),
+          Arrays.copyOf(attrColumn, attrSize),
+          Arrays.copyOf(names, nameCount),
+          Map.copyOf(nameIds),
+          content.toString()
+      );
+    }
+
+    return tree;
+  }
+
+  @Override
+  public void startElement(String name, Location location) {
+    int node = addNode(nameId(name), location);
+    current = node;
+  }
+
+  @Override
+  public void attribute(String name, String value, Location location) {
+    if (current == FxmlTree.NONE) {
+      throw new IllegalStateException("Attribute outside of an element");
+    }
+
+    if (attrSize == attrName.length) {
+      int cap = attrSize * 2;
+      attrName = Arrays.copyOf(attrName, cap);
+      attrValueStart = Arrays.copyOf(attrValueStart, cap);
+      attrValueEnd = Arrays.copyOf(attrValueEnd, cap);
+      attrOffset = Arrays.copyOf(attrOffset, cap);
+      attrLine = Arrays.copyOf(attrLine, cap);
+      attrColumn = Arrays.copyOf(attrColumn, cap);
+    }
+
+    if (attrCount[current] == 0) {
+      attrStart[current] = attrSize;
+    }
+
+    attrName[attrSize] = nameId(name);
+    attrValueStart[attrSize] = content.length();
+    content.append(value);
+    attrValueEnd[attrSize] = content.length();
+    attrOffset[attrSize] = location == null ? -1 : location.index();
+    attrLine[attrSize] = location == null ? -1 : location.line();
+    attrColumn[attrSize] = location == null ? -1 : location.column();
+
+    attrSize++;
+    attrCount[current]++;
+  }
+
+  @Override
+  public void text(String text, Location location) {
+    int node = addNode(FxmlTree.TEXT, location);
+
+    textStart[node] = content.length();
+    content.append(text);
+    textEnd[node] = content.length();
+  }
+
+  @Override
+  public void endElement(String name, Location location) {
+    if (current == FxmlTree.NONE) {
+      throw new IllegalStateException("No element to end");
+    }
+
+    current = parent[current];
+  }
+
+  private int addNode(int nameId, Location location) {
+    if (current == FxmlTree.NONE && size > 0) {
+      throw new IllegalStateException("Document already has a root element");
+    }
+
+    if (size == parent.length) {
+      grow();
+    }
+
+    int node = size++;
+
+    parent[node] = current;
+    firstChild[node] = FxmlTree.NONE;
+    lastChild[node] = FxmlTree.NONE;
+    nextSibling[node] = FxmlTree.NONE;
+    name[node] = nameId;
+    offset[node] = location == null ? -1 : location.index();
+    line[node] = location == null ? -1 : location.line();
+    column[node] = location == null ? -1 : location.column();
+    attrStart[node] = attrSize;
+    attrCount[node] = 0;
+
+    if (current != FxmlTree.NONE) {
+      int last = lastChild[current];
+
+      if (last == FxmlTree.NONE) {
+        firstChild[current] = node;
+      } else {
+        nextSibling[last] = node;
+      }
+
+      lastChild[current] = node;
+    }
+
+    tree = null;
+    return node;
+  }
+
+  private int nameId(String name) {
+    Integer id = nameIds.get(name);
+    if (id != null) {
+      return id;
+    }
+
+    if (nameCount == names.length) {
+      names = Arrays.copyOf(names, nameCount * 2);
+    }
+
+    int newId = nameCount++;
+    names[newId] = name;
+    nameIds.put(name, newId);
+
+    return newId;
+  }
+
+  private void grow() {
+    int cap = size * 2;
+
+    parent = Arrays.copyOf(parent, cap);
+    firstChild = Arrays.copyOf(firstChild, cap);
+    lastChild = Arrays.copyOf(lastChild, cap);
+    nextSibling = Arrays.copyOf(nextSibling, cap);
+    name = Arrays.copyOf(name, cap);
+    textStart = Arrays.copyOf(textStart, cap);
+    textEnd = Arrays.copyOf(textEnd, cap);
+    offset = Arrays.copyOf(offset, cap);
+    line = Arrays.copyOf(line, cap);
+    column = Arrays.copyOf(column, cap);
+    attrStart = Arrays.copyOf(attrStart, cap);
+    attrCount = Arrays.copyOf(attrCount, cap);
+  }
+}
@@ -0,0 +1,177 @@
+package me.jules.fxml.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import me.jules.fxml.parser.FxmlWriter;
+
+/**
+ * Converts XML to FXML in a single streaming pass, reading the XML with StAX
+ * and writing it with an {@link FxmlWriter}. Memory use doesn't depend on the
+ * size of the input.
+ * <p>
+ * Names are kept as written, including prefixes, and namespace declarations
+ * become plain attributes. Comments, processing instructions and DTDs are
+ * dropped, DTDs aren't loaded. Text FXML can't hold fails the conversion
+ * with the {@link IllegalArgumentException} thrown by {@link FxmlWriter}.
+ * <p>
+ * Instances can be shared between threads.
+ */
+public class XmlToFxml {
+
+  private final boolean pretty;
+
+  // Factories aren't guaranteed to be thread safe
+  private final ThreadLocal<XMLInputFactory> factories = ThreadLocal.withInitial(XmlToFxml::newFactory);
+
+  public XmlToFxml(boolean pretty) {
+    this.pretty = pretty;
+  }
+
+  private static XMLInputFactory newFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+    return factory;
+  }
+
+  public void convert(Reader in, Appendable out) throws XMLStreamException {
+    convert(factories.get().createXMLStreamReader(in), out);
+  }
+
+  /** Reads XML bytes, in the encoding the XML declares */
+  public void convert(InputStream in, Appendable out) throws XMLStreamException {
+    convert(factories.get().createXMLStreamReader(in), out);
+  }
+
+  /** Converts a file, the target is written as UTF-8 and removed on failure */
+  public void convert(Path source, Path target) throws IOException, XMLStreamException {
+    boolean done = false;
+
+    try (
+        InputStream in = Files.newInputStream(source);
+        Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)
+    ) {
+      convert(in, out);
+      done = true;
+    } finally {
+      if (!done) {
+        Files.deleteIfExists(target);
+      }
+    }
+  }
+
+  /**
+   * Converts files in parallel on the executor, each to the target path
+   * returned by {@code targets}. A failed file doesn't stop the others.
+   *
+   * @return The result of each file, in the order of {@code sources}
+   */
+  public List<Result> convertAll(
+      List<Path> sources,
+      Function<Path, Path> targets,
+      ExecutorService executor
+  ) throws InterruptedException {
+    Objects.requireNonNull(targets, "Null targets");
+
+    List<Future<Result>> futures = new ArrayList<>(sources.size());
+
+    for (Path source : sources) {
+      futures.add(executor.submit(() -> {
+        Path target = targets.apply(source);
+
+        try {
+          convert(source, target);
+          return new Result(source, target, null);
+        } catch (IOException | XMLStreamException | RuntimeException exc) {
+          return new Result(source, target, exc);
+        }
+      }));
+    }
+
+    List<Result> results = new ArrayList<>(futures.size());
+
+    for (Future<Result> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException exc) {
+        // Tasks catch everything but errors
+        throw new IllegalStateException(exc.getCause());
+      }
+    }
+
+    return results;
+  }
+
+  private void convert(XMLStreamReader reader, Appendable out) throws XMLStreamException {
+    FxmlWriter writer = new FxmlWriter(out, pretty);
+
+    try {
+      writer.startDocument();
+
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT -> {
+            writer.startElement(name(reader.getPrefix(), reader.getLocalName()), null);
+
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+              writer.attribute(
+                  name(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                  reader.getAttributeValue(i),
+                  null
+              );
+            }
+          }
+
+          case XMLStreamConstants.CHARACTERS,
+              XMLStreamConstants.CDATA,
+              XMLStreamConstants.SPACE -> writer.text(reader.getText(), null);
+
+          case XMLStreamConstants.END_ELEMENT -> {
+            writer.endElement(name(reader.getPrefix(), reader.getLocalName()), null);
+          }
+
+          default -> { }
+        }
+      }
+
+      writer.endDocument();
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static String name(String prefix, String localName) {
+    if (prefix == null || prefix.isEmpty()) {
+      return localName;
+    }
+
+    return prefix + ":" + localName;
+  }
+
+  /** Outcome of converting one file, {@code failure} is null on success */
+  public record Result(Path source, Path target, Exception failure) {
+
+    public boolean succeeded() {
+      return failure == null;
+    }
+  }
+}
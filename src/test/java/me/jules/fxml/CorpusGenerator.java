@@ -0,0 +1,223 @@
+package me.jules.fxml;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates FXML documents of a given size and shape. The same settings and
+ * seed always generate the same document, and generated documents are
+ * always valid.
+ * <p>
+ * Elements have up to {@code fanOut} children, and none below
+ * {@code maxDepth}, above which {@code leafRatio} of them have no body. The
+ * root element keeps getting children until the document is {@code size}
+ * chars long. About {@code textRatio} of the document is body text, the rest
+ * is markup. Names are picked from {@code distinctNames} names, so with a
+ * small number most of them are repeats.
+ */
+public final class CorpusGenerator {
+
+  private final long seed;
+
+  private int size = 64 * 1024;
+  private int maxDepth = 8;
+  private int fanOut = 6;
+  private double textRatio = 0.3;
+  private int distinctNames = 32;
+  private int maxAttributes = 3;
+  private double leafRatio = 0.25;
+  private int maxWordLength = 10;
+  private int maxTextWords = 24;
+
+  public CorpusGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  public CorpusGenerator size(int size) {
+    this.size = size;
+    return this;
+  }
+
+  public CorpusGenerator maxDepth(int maxDepth) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("Max depth must be at least 1, was " + maxDepth);
+    }
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  public CorpusGenerator fanOut(int fanOut) {
+    if (fanOut < 1) {
+      throw new IllegalArgumentException("Fan out must be at least 1, was " + fanOut);
+    }
+    this.fanOut = fanOut;
+    return this;
+  }
+
+  public CorpusGenerator textRatio(double textRatio) {
+    if (textRatio < 0 || textRatio > 1) {
+      throw new IllegalArgumentException("Text ratio must be between 0 and 1, was " + textRatio);
+    }
+    this.textRatio = textRatio;
+    return this;
+  }
+
+  public CorpusGenerator distinctNames(int distinctNames) {
+    if (distinctNames < 1) {
+      throw new IllegalArgumentException("Need at least 1 name, was " + distinctNames);
+    }
+    this.distinctNames = distinctNames;
+    return this;
+  }
+
+  public CorpusGenerator leafRatio(double leafRatio) {
+    if (leafRatio < 0 || leafRatio > 1) {
+      throw new IllegalArgumentException("Leaf ratio must be between 0 and 1, was " + leafRatio);
+    }
+    this.leafRatio = leafRatio;
+    return this;
+  }
+
+  /** Longest word in body text, long runs of name chars stress the tag lookahead */
+  public CorpusGenerator maxWordLength(int maxWordLength) {
+    if (maxWordLength < 1) {
+      throw new IllegalArgumentException("Max word length must be at least 1, was " + maxWordLength);
+    }
+    this.maxWordLength = maxWordLength;
+    return this;
+  }
+
+  /** Most words in one run of body text, long runs keep the text scanning busy */
+  public CorpusGenerator maxTextWords(int maxTextWords) {
+    if (maxTextWords < 1) {
+      throw new IllegalArgumentException("Max text words must be at least 1, was " + maxTextWords);
+    }
+    this.maxTextWords = maxTextWords;
+    return this;
+  }
+
+  public CorpusGenerator maxAttributes(int maxAttributes) {
+    this.maxAttributes = maxAttributes;
+    return this;
+  }
+
+  public String generate() {
+    Random random = new Random(seed);
+    StringBuilder out = new StringBuilder(size + 1024);
+
+    // Children each open element still gets, innermost last. The generator
+    // keeps its own stack, deep documents mustn't overflow the call stack.
+    int[] remaining = new int[Math.min(maxDepth, 1024) + 1];
+    int depth = 0;
+
+    long textChars = 0;
+    boolean lastWasText = false;
+
+    out.append("root {");
+    remaining[depth++] = Integer.MAX_VALUE;
+
+    while (depth > 0) {
+      if (out.length() >= size || remaining[depth - 1] == 0) {
+        out.append('}');
+        depth--;
+        lastWasText = false;
+        continue;
+      }
+
+      if (!lastWasText && textChars < textRatio * out.length()) {
+        int start = out.length();
+        text(out, random);
+        textChars += out.length() - start;
+        lastWasText = true;
+        continue;
+      }
+
+      remaining[depth - 1]--;
+      lastWasText = false;
+
+      out.append(name(random));
+
+      int attrs = maxAttributes == 0 ? 0 : random.nextInt(maxAttributes + 1);
+      if (attrs > 0) {
+        attributes(out, random, attrs);
+      }
+
+      if (depth >= maxDepth || random.nextDouble() < leafRatio) {
+        if (attrs == 0) {
+          out.append("{}");
+        }
+        continue;
+      }
+
+      out.append(" {");
+
+      if (depth == remaining.length) {
+        remaining = Arrays.copyOf(remaining, depth * 2);
+      }
+      remaining[depth++] = 1 + random.nextInt(fanOut);
+    }
+
+    return out.toString();
+  }
+
+  // Starts and ends with whitespace, so it never runs into a tag name
+  private void text(StringBuilder out, Random random) {
+    int words = 1 + random.nextInt(maxTextWords);
+
+    for (int i = 0; i < words; i++) {
+      out.append(i % 10 == 0 ? '\n' : ' ');
+      word(out, random, maxWordLength);
+
+      if (random.nextInt(8) == 0) {
+        out.append(random.nextBoolean() ? ',' : '.');
+      }
+    }
+
+    out.append(' ');
+  }
+
+  private void attributes(StringBuilder out, Random random, int count) {
+    out.append('(');
+
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        out.append(' ');
+      }
+
+      out.append(name(random)).append('-').append(i).append('=');
+
+      switch (random.nextInt(3)) {
+        case 0 -> out.append(random.nextInt(100_000));
+
+        case 1 -> {
+          out.append('"');
+          word(out, random, 10);
+          out.append(' ');
+          word(out, random, 10);
+          out.append('"');
+        }
+
+        default -> {
+          out.append("'");
+          word(out, random, 10);
+          out.append("\\n\\u0041'");
+        }
+      }
+    }
+
+    out.append(')');
+  }
+
+  private String name(Random random) {
+    int n = random.nextInt(distinctNames);
+    return "n" + Integer.toString(n, 36);
+  }
+
+  private static void word(StringBuilder out, Random random, int maxLength) {
+    int len = 1 + random.nextInt(maxLength);
+
+    for (int i = 0; i < len; i++) {
+      out.append((char) ('a' + random.nextInt(26)));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package me.jules.fxml;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.tree.FxmlTree;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+class FxmlCacheTest {
+
+  @Test
+  void hitsReturnSameTree() throws ParserConfigurationException {
+    FxmlCache cache = new FxmlCache(16, 1024);
+    String input = "root(a=1) {text child {}}";
+
+    FxmlTree first = cache.getTree(input);
+    FxmlTree second = cache.getTree(new StringBuilder(input));
+
+    assertSame(first, second);
+    assertEquals(new FxmlCache.Stats(1, 1, 0, 1, input.length()), cache.stats());
+
+    // Documents are copies, changing one doesn't affect the next
+    Document doc = cache.getDocument(input);
+    doc.getDocumentElement().setAttribute("a", "changed");
+
+    assertTrue(Fxml.parseDocument(input).isEqualNode(cache.getDocument(input)));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsed() {
+    FxmlCache cache = new FxmlCache(16, 30);
+
+    String a = "a {0123456789}";
+    String b = "b {0123456789}";
+    String c = "c {0123456789}";
+
+    FxmlTree treeA = cache.getTree(a);
+    cache.getTree(b);
+    cache.getTree(a);
+    cache.getTree(c);
+
+    FxmlCache.Stats stats = cache.stats();
+    assertEquals(1, stats.evictions());
+    assertEquals(2, stats.entries());
+
+    // b was the least recently used
+    assertSame(treeA, cache.getTree(a));
+    assertEquals(2, cache.stats().hits());
+
+    cache.getTree(b);
+    assertEquals(4, cache.stats().misses());
+  }
+
+  @Test
+  void fileChangesMiss() throws IOException {
+    FxmlCache cache = new FxmlCache(16, 1024);
+    Path file = Files.createTempFile("fxml-cache", ".fxml");
+
+    try {
+      Files.writeString(file, "root {first}");
+      FxmlTree first = cache.getTree(file);
+      assertSame(first, cache.getTree(file));
+
+      Files.writeString(file, "root {second version}");
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+      FxmlTree second = cache.getTree(file);
+      assertEquals("second version", second.text(second.firstChild(second.root())));
+      assertEquals(1, cache.stats().entries());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package me.jules.fxml;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import me.jules.fxml.parser.CharInput;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.Location;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+// Catches parser changes that make parsing superlinear or allocation heavy.
+// Bounds are loose enough for noisy machines, a quadratic scan or a per char
+// allocation still blows well past them.
+class ScalingTest {
+
+  static final int SMALL = 128 * 1024;
+  static final int FACTOR = 8;
+
+  // Parsing FACTOR times the input may take at most this many times longer
+  static final double MAX_TIME_RATIO = FACTOR * 3;
+
+  // Currently between 3 and 31 depending on the shape
+  static final double MAX_ALLOCATED_PER_CHAR = 48;
+
+  static final int WARMUP_RUNS = 3;
+  static final int TIMED_RUNS = 7;
+
+  static Map<String, CorpusGenerator> shapes(int size) {
+    Map<String, CorpusGenerator> shapes = new LinkedHashMap<>();
+
+    shapes.put("balanced", new CorpusGenerator(1));
+    shapes.put("text heavy", new CorpusGenerator(2).textRatio(0.9));
+    shapes.put("markup only", new CorpusGenerator(3).textRatio(0).maxAttributes(8));
+    shapes.put("deep", new CorpusGenerator(4).maxDepth(100_000).fanOut(1).leafRatio(0));
+    shapes.put("wide", new CorpusGenerator(5).maxDepth(1));
+    shapes.put("unique names", new CorpusGenerator(6).distinctNames(Integer.MAX_VALUE));
+
+    // Words as long as the input is large, so a lookahead that rescans
+    // names is quadratic in the input size
+    shapes.put("long words", new CorpusGenerator(7).textRatio(0.9).maxWordLength(size / 1024));
+
+    for (CorpusGenerator generator : shapes.values()) {
+      generator.size(size);
+    }
+
+    return shapes;
+  }
+
+  @Test
+  void generatorIsDeterministic() {
+    for (Map.Entry<String, CorpusGenerator> e : shapes(SMALL).entrySet()) {
+      String doc = e.getValue().generate();
+
+      assertEquals(doc, e.getValue().generate(), e.getKey());
+      assertTrue(doc.length() >= SMALL, e.getKey());
+
+      // Throws if the generator made something invalid
+      Fxml.parseTree(doc);
+    }
+  }
+
+  @Test
+  void timeScalesLinearly() {
+    Map<String, CorpusGenerator> largeShapes = shapes(SMALL * FACTOR);
+
+    for (Map.Entry<String, CorpusGenerator> e : shapes(SMALL).entrySet()) {
+      String small = e.getValue().generate();
+      String large = largeShapes.get(e.getKey()).generate();
+
+      for (int i = 0; i < WARMUP_RUNS; i++) {
+        parse(small);
+        parse(large);
+      }
+
+      long smallTime = Long.MAX_VALUE;
+      long largeTime = Long.MAX_VALUE;
+
+      for (int i = 0; i < TIMED_RUNS; i++) {
+        smallTime = Math.min(smallTime, time(small));
+        largeTime = Math.min(largeTime, time(large));
+      }
+
+      // Normalized by length, the generated sizes overshoot a little
+      double perChar = (double) largeTime / large.length();
+      double smallPerChar = (double) smallTime / small.length();
+      double ratio = FACTOR * perChar / smallPerChar;
+
+      assertTrue(
+          ratio <= MAX_TIME_RATIO,
+          e.getKey() + ": " + FACTOR + "x the input took " + ratio + "x as long"
+      );
+    }
+  }
+
+  @Test
+  void allocationBudget() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+    Assumptions.assumeTrue(
+        bean instanceof com.sun.management.ThreadMXBean b && b.isThreadAllocatedMemorySupported(),
+        "Thread allocation counters not supported"
+    );
+
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    long thread = Thread.currentThread().getId();
+
+    for (Map.Entry<String, CorpusGenerator> e : shapes(SMALL * FACTOR).entrySet()) {
+      String doc = e.getValue().generate();
+
+      // Leaves out the parser's one time setup
+      parse(doc);
+
+      long before = threads.getThreadAllocatedBytes(thread);
+      parse(doc);
+      long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+      double perChar = (double) allocated / doc.length();
+
+      assertTrue(
+          perChar <= MAX_ALLOCATED_PER_CHAR,
+          e.getKey() + ": allocated " + perChar + " bytes per input char"
+      );
+    }
+  }
+
+  static long time(String doc) {
+    long start = System.nanoTime();
+    parse(doc);
+    return System.nanoTime() - start;
+  }
+
+  // Lexer and parser only, a DOM would mostly measure the DOM
+  static int parse(String doc) {
+    EventCounter counter = new EventCounter();
+    Fxml.parse(CharInput.of(doc), counter);
+    return counter.events;
+  }
+
+  static class EventCounter implements DocumentHandler {
+
+    int events = 0;
+
+    @Override
+    public void startElement(String name, Location location) {
+      events++;
+    }
+
+    @Override
+    public void attribute(String name, String value, Location location) {
+      events++;
+    }
+
+    @Override
+    public void text(String text, Location location) {
+      events++;
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+      events++;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package me.jules.fxml.binary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.Fxml;
+import me.jules.fxml.parser.CharInput;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.Location;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+class CompiledFxmlTest {
+
+  static final String INPUT = """
+      root(version=2 title="Caf\\u00e9 \\"menu\\"") {
+        header { Welcome }
+        item(id=1 price='3.50') {Espresso \uD83D\uDE00}
+        item(id=2) {Lungo}\r
+        empty()
+        list { a(x=1) b(x=1) c(x=1) }
+      }
+      """;
+
+  @Test
+  void sameEventsAsParser() throws IOException {
+    List<String> expected = new ArrayList<>();
+    Fxml.parse(CharInput.of(INPUT), new Recorder(expected));
+
+    List<String> replayed = new ArrayList<>();
+    compile(INPUT).replay(new Recorder(replayed));
+
+    assertEquals(expected, replayed);
+  }
+
+  @Test
+  void sameDocumentAsParser() throws IOException, ParserConfigurationException {
+    Document expected = Fxml.parseDocument(INPUT);
+    Document loaded = compile(INPUT).toDocument(Fxml.getDocumentBuilder().newDocument());
+
+    assertTrue(expected.isEqualNode(loaded));
+  }
+
+  @Test
+  void loadMapped() throws IOException, ParserConfigurationException {
+    Path source = Files.createTempFile("compiled", ".fexml");
+    Path target = Files.createTempFile("compiled", ".fxmb");
+
+    try {
+      Files.writeString(source, INPUT);
+      FxmlCompiler.compile(source, target);
+
+      CompiledFxml compiled = CompiledFxml.load(target);
+      Document loaded = compiled.toDocument(Fxml.getDocumentBuilder().newDocument());
+
+      assertTrue(Fxml.parseDocument(source).isEqualNode(loaded));
+    } finally {
+      Files.delete(source);
+      Files.delete(target);
+    }
+  }
+
+  @Test
+  void rejectsOtherVersions() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FxmlCompiler.compile(CharInput.of(INPUT), out);
+
+    ByteBuffer buf = ByteBuffer.wrap(out.toByteArray());
+    buf.putShort(4, (short) (BinaryFormat.VERSION + 1));
+
+    assertThrows(IllegalArgumentException.class, () -> CompiledFxml.read(buf));
+    assertThrows(IllegalArgumentException.class, () -> CompiledFxml.read(ByteBuffer.allocate(8)));
+  }
+
+  private static CompiledFxml compile(String input) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FxmlCompiler.compile(CharInput.of(input), out);
+    return CompiledFxml.read(ByteBuffer.wrap(out.toByteArray()));
+  }
+
+  // Full positions, the compiled form keeps the line and column too
+  static String at(Location location) {
+    return location.index() + "/" + location.line() + ":" + location.column();
+  }
+
+  record Recorder(List<String> events) implements DocumentHandler {
+
+    @Override
+    public void startElement(String name, Location location) {
+      events.add("start " + name + " @" + at(location));
+    }
+
+    @Override
+    public void attribute(String name, String value, Location location) {
+      events.add("attr " + name + "=" + value + " @" + at(location));
+    }
+
+    @Override
+    public void text(String text, Location location) {
+      events.add("text " + text + " @" + at(location));
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+      events.add("end " + name + " @" + at(location));
+    }
+  }
+}
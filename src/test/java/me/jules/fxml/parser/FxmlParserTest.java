@@ -0,0 +1,184 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+class FxmlParserTest {
+
+  static final String[] INPUTS = {
+      "root(a=1 b='two') {text child {more}}",
+      "other {\r\n  \"quoted \\u0041\" inner(x=y) tail}",
+      "root {deep {deeper {deepest {}}}}",
+  };
+
+  @Test
+  void reuseMatchesFreshParse() throws ParserConfigurationException {
+    FxmlParser parser = FxmlParser.builder().build();
+
+    for (int i = 0; i < 3; i++) {
+      for (String input : INPUTS) {
+        assertTrue(fresh(input).isEqualNode(parser.parseDocument(input)), input);
+      }
+    }
+  }
+
+  @Test
+  void errorDoesNotAffectNextParse() throws ParserConfigurationException {
+    FxmlParser parser = FxmlParser.builder().sourceName("test.fxml").build();
+
+    RuntimeException exc = assertThrows(
+        RuntimeException.class,
+        () -> parser.parseDocument("root(a='unclosed {")
+    );
+    assertTrue(exc.getMessage().contains("test.fxml"), exc.getMessage());
+
+    assertTrue(fresh(INPUTS[0]).isEqualNode(parser.parseDocument(INPUTS[0])));
+  }
+
+  @Test
+  void maxDepth() {
+    FxmlParser parser = FxmlParser.builder().maxDepth(3).build();
+    assertThrows(RuntimeException.class, () -> parser.parseDocument(INPUTS[2]));
+  }
+
+  @Test
+  void maxDepthInParallel() {
+    FxmlParser parser = FxmlParser.builder().maxDepth(3).build();
+
+    assertThrows(
+        RuntimeException.class,
+        () -> parser.parseDocumentParallel(CharInput.of(INPUTS[2]), ForkJoinPool.commonPool())
+    );
+  }
+
+  @Test
+  void fullSymbolTableStartsOver() {
+    FxmlParser parser = FxmlParser.builder().build();
+    StringBuilder unique = new StringBuilder("root {");
+
+    for (int i = 0; i <= SymbolTable.DEFAULT_MAX_SYMBOLS; i++) {
+      unique.append(" e").append(i).append(" {}");
+    }
+
+    parser.parse(CharInput.of(unique.append('}')), new Names());
+
+    Names names = new Names();
+    parser.parse(CharInput.of("root {x {} x {}}"), names);
+
+    assertEquals(List.of("root", "x", "x"), names.names);
+    assertSame(names.names.get(1), names.names.get(2));
+  }
+
+  @Test
+  void releasesDocumentAfterParse() throws InterruptedException {
+    FxmlParser parser = FxmlParser.builder().build();
+
+    Names handler = new Names();
+    WeakReference<Names> ref = new WeakReference<>(handler);
+    parser.parse(CharInput.of(INPUTS[0]), handler);
+    handler = null;
+
+    for (int i = 0; i < 50 && ref.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(ref.get());
+  }
+
+  @Test
+  void nestedParseOnSameThread() throws ParserConfigurationException {
+    FxmlParser parser = FxmlParser.builder().build();
+    List<String> names = new ArrayList<>();
+
+    parser.parse(CharInput.of(INPUTS[0]), new DocumentHandler() {
+      @Override
+      public void startElement(String name, Location location) {
+        names.add(name);
+
+        if (name.equals("child")) {
+          parser.parse(CharInput.of("nested {}"), this);
+        }
+      }
+
+      @Override
+      public void attribute(String name, String value, Location location) {
+
+      }
+
+      @Override
+      public void text(String text, Location location) {
+
+      }
+
+      @Override
+      public void endElement(String name, Location location) {
+
+      }
+    });
+
+    assertEquals(List.of("root", "child", "nested"), names);
+  }
+
+  @Test
+  void sharedBetweenThreads() throws Exception {
+    FxmlParser parser = FxmlParser.builder().build();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+
+      for (int i = 0; i < 200; i++) {
+        String input = INPUTS[i % INPUTS.length];
+        results.add(executor.submit(() -> fresh(input).isEqualNode(parser.parseDocument(input))));
+      }
+
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static class Names implements DocumentHandler {
+
+    final List<String> names = new ArrayList<>();
+
+    @Override
+    public void startElement(String name, Location location) {
+      names.add(name);
+    }
+
+    @Override
+    public void attribute(String name, String value, Location location) {
+
+    }
+
+    @Override
+    public void text(String text, Location location) {
+
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+
+    }
+  }
+
+  private static Document fresh(String input) throws ParserConfigurationException {
+    TokenStream stream = new TokenStream(input, new DefaultListener(input, null));
+    return new Parser(stream, new DefaultListener(input, null), Fxml.getDocumentBuilder()).parse();
+  }
+}
@@ -0,0 +1,237 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import me.jules.fxml.CorpusGenerator;
+import org.junit.jupiter.api.Test;
+
+class FxmlStreamReaderTest {
+
+  static final String[] MORE_INPUTS = {
+      "root(a c='' \"d\"=e b=) {leaf() other(x=1) text {} last(y=2)}",
+      "  root {\n  a {\r\n text\r\n  } b(x=\"multi\nline\")\n}  ",
+      "root {}",
+      "root(only=attributes)",
+      "root {{stray} text}",
+      "root {" + "d {".repeat(10_000) + "}".repeat(10_000) + "}",
+  };
+
+  static final String[] INVALID_INPUTS = {
+      "root {unclosed {",
+      "root(a='unclosed) {}",
+      "root(a=) {b(=c)}",
+      "text before root {}",
+      "root",
+      "",
+  };
+
+  @Test
+  void eventsMatchParser() {
+    for (String input : inputs()) {
+      assertEquals(parserEvents(input, 0), readerEvents(input, 0), input);
+    }
+  }
+
+  @Test
+  void errorsMatchParser() {
+    for (String input : INVALID_INPUTS) {
+      RuntimeException expected = assertThrows(RuntimeException.class, () -> parserEvents(input, 0));
+      RuntimeException actual = assertThrows(RuntimeException.class, () -> readerEvents(input, 0));
+
+      assertEquals(expected.getMessage(), actual.getMessage(), input);
+    }
+  }
+
+  @Test
+  void endOfInputInBodyReportedOnce() {
+    String input = INVALID_INPUTS[0];
+    assertEquals(parserErrors(input), readerErrors(input));
+  }
+
+  @Test
+  void recoversLikeParser() {
+    for (String input : INVALID_INPUTS) {
+      for (int maxDepth : new int[] {0, 1}) {
+        CharInput in = CharInput.of(input);
+        DiagnosticCollector parserDiagnostics = new DiagnosticCollector(in, null);
+        EventRecorder recorder = new EventRecorder();
+        recovering(in, parserDiagnostics, maxDepth).parse(recorder);
+
+        DiagnosticCollector readerDiagnostics = new DiagnosticCollector(in, null);
+        List<String> events = readAll(new FxmlStreamReader(recovering(in, readerDiagnostics, maxDepth)));
+
+        assertEquals(recorder.events, events, input);
+        assertEquals(diagnosticList(parserDiagnostics), diagnosticList(readerDiagnostics), input);
+      }
+    }
+  }
+
+  // Events are parsed as they're asked for, not all up front
+  @Test
+  void readsLazily() {
+    String input = "root(a=1) {first " + "child {text} ".repeat(10_000) + "}";
+    TokenStreamTest.CountingInput in = new TokenStreamTest.CountingInput(CharInput.of(input));
+    FxmlStreamReader reader = reader(in, null);
+
+    assertEquals(EventType.START_ELEMENT, reader.next());
+    assertEquals(EventType.ATTRIBUTE, reader.next());
+    assertEquals(EventType.TEXT, reader.next());
+    assertEquals("first ", reader.getValue());
+
+    assertTrue(in.reads < 1000, "Read " + in.reads + " chars");
+  }
+
+  @Test
+  void maxDepthMatchesParser() {
+    String input = FxmlParserTest.INPUTS[2];
+
+    RuntimeException expected = assertThrows(RuntimeException.class, () -> parserEvents(input, 2));
+    RuntimeException actual = assertThrows(RuntimeException.class, () -> readerEvents(input, 2));
+
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  @Test
+  void skipsElements() {
+    FxmlStreamReader reader = reader(CharInput.of(FxmlParserTest.INPUTS[0]), null);
+
+    assertEquals(EventType.START_ELEMENT, reader.nextTag());
+    assertEquals(EventType.ATTRIBUTE, reader.next());
+
+    reader.skipElement();
+
+    assertEquals(EventType.END_ELEMENT, reader.getEventType());
+    assertEquals("root", reader.getName());
+    assertEquals(EventType.END_DOCUMENT, reader.next());
+    assertFalse(reader.hasNext());
+  }
+
+  static List<String> inputs() {
+    List<String> inputs = new ArrayList<>(List.of(FxmlParserTest.INPUTS));
+    inputs.addAll(List.of(MORE_INPUTS));
+
+    for (int seed = 0; seed < 4; seed++) {
+      inputs.add(new CorpusGenerator(seed).size(16 * 1024).textRatio(seed * 0.3).generate());
+    }
+
+    return inputs;
+  }
+
+  static List<String> parserEvents(String input, int maxDepth) {
+    CharInput in = CharInput.of(input);
+    DefaultListener listener = new DefaultListener(in, null);
+    Parser parser = new Parser(new TokenStream(in, listener), listener);
+
+    if (maxDepth > 0) {
+      parser.setMaxDepth(maxDepth);
+    }
+
+    EventRecorder recorder = new EventRecorder();
+    parser.parse(recorder);
+    return recorder.events;
+  }
+
+  static List<String> readerEvents(String input, int maxDepth) {
+    CharInput in = CharInput.of(input);
+    DefaultListener listener = new DefaultListener(in, null);
+    Parser parser = new Parser(new TokenStream(in, listener), listener);
+
+    if (maxDepth > 0) {
+      parser.setMaxDepth(maxDepth);
+    }
+
+    return readAll(new FxmlStreamReader(parser));
+  }
+
+  // Diagnostics from a listener that doesn't throw, so both have to get
+  // past the error on their own
+  static List<String> parserErrors(String input) {
+    CharInput in = CharInput.of(input);
+    DiagnosticCollector diagnostics = new DiagnosticCollector(in, null);
+
+    new Parser(new TokenStream(in, diagnostics), diagnostics).parse(new EventRecorder());
+    return diagnosticList(diagnostics);
+  }
+
+  static List<String> readerErrors(String input) {
+    CharInput in = CharInput.of(input);
+    DiagnosticCollector diagnostics = new DiagnosticCollector(in, null);
+
+    readAll(reader(in, diagnostics));
+    return diagnosticList(diagnostics);
+  }
+
+  static Parser recovering(CharInput in, ParserListener listener, int maxDepth) {
+    Parser parser = new Parser(new TokenStream(in, listener), listener);
+    parser.setRecoverErrors(true);
+
+    if (maxDepth > 0) {
+      parser.setMaxDepth(maxDepth);
+    }
+
+    return parser;
+  }
+
+  static FxmlStreamReader reader(CharInput in, ParserListener listener) {
+    ParserListener l = listener == null ? new DefaultListener(in, null) : listener;
+    return new FxmlStreamReader(new TokenStream(in, l), l);
+  }
+
+  static List<String> readAll(FxmlStreamReader reader) {
+    List<String> events = new ArrayList<>();
+
+    while (reader.hasNext()) {
+      EventType type = reader.next();
+
+      events.add(switch (type) {
+        case START_ELEMENT -> "start " + reader.getName() + " @" + reader.getLocation().index();
+        case ATTRIBUTE -> "attr " + reader.getName() + "=" + reader.getValue() + " @" + reader.getLocation().index();
+        case TEXT -> "text " + reader.getValue() + " @" + reader.getLocation().index();
+        case END_ELEMENT -> "end " + reader.getName() + " @" + reader.getLocation().index();
+        case END_DOCUMENT -> "end document";
+      });
+    }
+
+    return events;
+  }
+
+  static List<String> diagnosticList(DiagnosticCollector diagnostics) {
+    List<String> list = new ArrayList<>();
+    for (Diagnostic d : diagnostics.getDiagnostics()) {
+      list.add(d.offset() + " " + d.message());
+    }
+    return list;
+  }
+
+  static class EventRecorder implements DocumentHandler {
+
+    final List<String> events = new ArrayList<>();
+
+    @Override
+    public void startElement(String name, Location location) {
+      events.add("start " + name + " @" + location.index());
+    }
+
+    @Override
+    public void attribute(String name, String value, Location location) {
+      events.add("attr " + name + "=" + value + " @" + location.index());
+    }
+
+    @Override
+    public void text(String text, Location location) {
+      events.add("text " + text + " @" + location.index());
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+      events.add("end " + name + " @" + location.index());
+    }
+
+    @Override
+    public void endDocument() {
+      events.add("end document");
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+class FxmlWriterTest {
+
+  static final String INPUT = """
+      root(title="A \\"quoted\\" title" v=1 tab='\\t\\u0041') {
+        a(x=1)   text after a body-less element
+        b {text c {} more}
+        d(path="./x y.scss")
+        e { f {} }
+      }
+      """;
+
+  @Test
+  void pretty() {
+    StringBuilder written = new StringBuilder();
+    Fxml.parse(CharInput.of(INPUT), new FxmlWriter(written, true));
+
+    assertEquals(
+        """
+        root(title="A \\"quoted\\" title" v=1 tab="\\tA") {
+          a(x=1)text after a body-less element
+          b {text c {} more}
+          d(path="./x y.scss")
+          e {
+            f {}
+          }
+        }
+        """,
+        written.toString()
+    );
+  }
+
+  @Test
+  void roundTrip() throws ParserConfigurationException {
+    Document expected = Fxml.parseDocument(INPUT);
+
+    for (boolean pretty : new boolean[] {true, false}) {
+      String fromDom = write(expected, pretty);
+      assertTrue(expected.isEqualNode(Fxml.parseDocument(fromDom)), fromDom);
+
+      StringBuilder fromEvents = new StringBuilder();
+      Fxml.parse(CharInput.of(INPUT), new FxmlWriter(fromEvents, pretty));
+      assertTrue(expected.isEqualNode(Fxml.parseDocument(fromEvents)), fromEvents.toString());
+    }
+  }
+
+  @Test
+  void textAfterBodylessElement() throws ParserConfigurationException {
+    Document doc = Fxml.getDocumentBuilder().newDocument();
+    doc.appendChild(doc.createElement("root"));
+    Element a = doc.createElement("a");
+    a.setAttribute("x", "1");
+
+    doc.getDocumentElement().appendChild(a);
+    doc.getDocumentElement().appendChild(doc.createTextNode("  spaced"));
+
+    String written = write(doc, false);
+    assertEquals("root{a(x=1){}  spaced}", written);
+    assertTrue(doc.isEqualNode(Fxml.parseDocument(written)));
+  }
+
+  @Test
+  void escapesValues() throws ParserConfigurationException {
+    Document doc = Fxml.getDocumentBuilder().newDocument();
+    doc.appendChild(doc.createElement("root"));
+    doc.getDocumentElement().setAttribute("a", "\u0001F\r\n\\ \ud800");
+
+    String written = write(doc, false);
+    assertEquals("root(a=\"\\u0001\\u0046\\r\\n\\\\ \\ud800\")", written);
+
+    assertEquals(
+        "\u0001F\r\n\\ \ud800",
+        Fxml.parseDocument(written).getDocumentElement().getAttribute("a")
+    );
+  }
+
+  @Test
+  void rejectsUnwritableText() {
+    assertThrows(IllegalArgumentException.class, () -> writeText("closing } brace"));
+    assertThrows(IllegalArgumentException.class, () -> writeText("call(x)"));
+    assertThrows(IllegalArgumentException.class, () -> writeText("word {"));
+
+    FxmlWriter writer = new FxmlWriter(new StringBuilder(), false);
+    writer.startElement("root", null);
+    writer.text("ends in a name", null);
+    assertThrows(IllegalArgumentException.class, () -> writer.startElement("child", null));
+  }
+
+  private static void writeText(String text) {
+    FxmlWriter writer = new FxmlWriter(new StringBuilder(), false);
+    writer.startElement("root", null);
+    writer.text(text, null);
+  }
+
+  private static String write(Document doc, boolean pretty) {
+    StringBuilder out = new StringBuilder();
+    new FxmlWriter(out, pretty).write(doc);
+    return out.toString();
+  }
+}
@@ -0,0 +1,45 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class GapBufferTest {
+
+  @Test
+  void editsMatchString() {
+    GapBuffer buffer = new GapBuffer("hello world");
+    StringBuilder expected = new StringBuilder("hello world");
+
+    buffer.replace(5, 1, ", ");
+    expected.replace(5, 6, ", ");
+    assertEquals(expected.toString(), buffer.toString());
+
+    // Moves the gap back, then forward again, and grows it
+    String large = "x".repeat(GapBuffer.MIN_GAP * 3);
+    buffer.replace(0, 0, large);
+    expected.insert(0, large);
+    buffer.replace(expected.length() - 2, 2, "");
+    expected.setLength(expected.length() - 2);
+
+    assertEquals(expected.toString(), buffer.toString());
+    assertEquals(expected.length(), buffer.length());
+    assertEquals(CharInput.EOF, buffer.charAt(buffer.length()));
+  }
+
+  @Test
+  void readsAcrossGap() {
+    GapBuffer buffer = new GapBuffer("abc def(ghi)");
+    buffer.replace(4, 0, "x");
+
+    assertEquals("abc xdef(ghi)", buffer.toString());
+    assertEquals("c xd", buffer.substring(2, 6));
+    assertEquals('x', buffer.charAt(4));
+    assertEquals('d', buffer.charAt(5));
+
+    // Starts before the gap, finds the stop after it
+    assertEquals(8, buffer.scanText(0, 13));
+    assertEquals(3, buffer.scanText(0, 3));
+    assertEquals(6, buffer.scanQuoted('e', 1, 13));
+  }
+}
@@ -0,0 +1,110 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+
+class IncrementalDocumentTest {
+
+  static final String INPUT = """
+      root {
+        first(key=1)
+        second {
+          inner(a='b') {text}
+          last()}
+        third {more text}
+      }
+      """;
+
+  @Test
+  void reparsesInnermostElement() throws ParserConfigurationException {
+    IncrementalDocument doc = Fxml.parseIncremental(INPUT);
+    Element third = (Element) doc.getDocument().getElementsByTagName("third").item(0);
+
+    int offset = INPUT.indexOf("text}");
+    doc.edit(offset, 4, "changed {content}");
+
+    assertSameAsFullParse(doc);
+
+    String text = doc.getText();
+    assertEquals(text.indexOf("inner"), doc.getLastReparseStart());
+    assertEquals(text.indexOf("{content}}") + 10, doc.getLastReparseEnd());
+
+    // Untouched siblings are reused
+    assertSame(third, doc.getDocument().getElementsByTagName("third").item(0));
+
+    // Offsets after the edit were moved along
+    doc.edit(doc.getText().indexOf("more"), 4, "less");
+    assertSameAsFullParse(doc);
+    assertEquals(doc.getText().indexOf("third"), doc.getLastReparseStart());
+  }
+
+  @Test
+  void structuralEditFallsBack() throws ParserConfigurationException {
+    IncrementalDocument doc = Fxml.parseIncremental(INPUT);
+
+    // Closes 'second' early, the old brace now closes the root
+    doc.edit(INPUT.indexOf("inner"), 0, "}");
+
+    assertSameAsFullParse(doc);
+    assertEquals(0, doc.getLastReparseStart());
+
+    // Body-less element before its parent's closing brace
+    doc.edit(doc.getText().indexOf("last(") + 5, 0, "x=y");
+    assertSameAsFullParse(doc);
+  }
+
+  @Test
+  void errorsReportedLikeFullParse() throws ParserConfigurationException {
+    IncrementalDocument doc = Fxml.parseIncremental(INPUT);
+    int offset = INPUT.indexOf("a='b'");
+    String edited = INPUT.substring(0, offset) + "a='\\x'" + INPUT.substring(offset + 5);
+
+    RuntimeException expected = assertThrows(RuntimeException.class, () -> Fxml.parseDocument(edited));
+    RuntimeException incremental = assertThrows(RuntimeException.class, () -> doc.edit(offset, 5, "a='\\x'"));
+
+    assertEquals(expected.getMessage(), incremental.getMessage());
+  }
+
+  @Test
+  void failedEditInvalidatesRanges() throws ParserConfigurationException {
+    String input = "root { first(key=1) {one} second {two} third {three} }";
+    IncrementalDocument doc = Fxml.parseIncremental(input);
+
+    assertThrows(RuntimeException.class, () -> doc.edit(input.indexOf('='), 1, "("));
+
+    // The old ranges would accept this and leave key=1 in the DOM
+    int offset = doc.getText().indexOf("three");
+    assertThrows(RuntimeException.class, () -> doc.edit(offset, 5, "THREE"));
+
+    doc.edit(doc.getText().indexOf("key(") + 3, 1, "=");
+    assertEquals(0, doc.getLastReparseStart());
+    assertSameAsFullParse(doc);
+  }
+
+  @Test
+  void editBeforeDeepSubtree() throws ParserConfigurationException {
+    int depth = 100_000;
+    String input = "root { first {1} " + "d {".repeat(depth) + "}".repeat(depth) + " last {2} }";
+    IncrementalDocument doc = Fxml.parseIncremental(input);
+
+    doc.edit(input.indexOf('1'), 1, "one");
+    assertEquals(input.indexOf("first"), doc.getLastReparseStart());
+
+    // The edit above moved everything after it without visiting it
+    String text = doc.getText();
+    doc.edit(text.indexOf('2'), 1, "two");
+    assertEquals(text.indexOf("last"), doc.getLastReparseStart());
+    assertEquals("two", doc.getDocument().getElementsByTagName("last").item(0).getTextContent());
+  }
+
+  private static void assertSameAsFullParse(IncrementalDocument doc)
+      throws ParserConfigurationException
+  {
+    Element expected = Fxml.parseDocument(doc.getText()).getDocumentElement();
+    assertTrue(expected.isEqualNode(doc.getDocument().getDocumentElement()), doc.getText());
+  }
+}
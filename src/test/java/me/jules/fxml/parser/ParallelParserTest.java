@@ -0,0 +1,86 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+class ParallelParserTest {
+
+  static final int CHILDREN = 2000;
+
+  @Test
+  void sameAsSequential() throws ParserConfigurationException {
+    String input = document(CHILDREN, null);
+
+    Document expected = Fxml.parseDocument(input);
+    Document parallel = parallel(input);
+
+    assertEquals(CHILDREN, parallel.getDocumentElement().getElementsByTagName("item").getLength());
+    assertTrue(expected.isEqualNode(parallel));
+  }
+
+  @Test
+  void sameErrorLocation() {
+    String input = document(CHILDREN, "item(key=\"bad \\x escape\")");
+
+    RuntimeException expected = assertThrows(RuntimeException.class, () -> Fxml.parseDocument(input));
+    RuntimeException parallel = assertThrows(RuntimeException.class, () -> parallel(input));
+
+    assertEquals(expected.getMessage(), parallel.getMessage());
+  }
+
+  // Joining a slice mustn't recurse through it. isEqualNode() would, so the
+  // documents are compared as text.
+  @Test
+  void deepSlice() throws ParserConfigurationException {
+    int depth = 100_000;
+    String input = document(CHILDREN, "d {".repeat(depth) + "a(x=1) {one} two b {three}" + "}".repeat(depth));
+
+    assertEquals(write(Fxml.parseDocument(input)), write(parallel(input)));
+  }
+
+  private static String write(Document document) {
+    StringBuilder out = new StringBuilder();
+    new FxmlWriter(out, false).write(document);
+    return out.toString();
+  }
+
+  private static Document parallel(String input) throws ParserConfigurationException {
+    CharInput in = CharInput.of(input);
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      ParallelParser parser = new ParallelParser(pool, Fxml.getDocumentBuilder());
+      parser.setMinSliceLength(256);
+      return parser.parse(in, new DefaultListener(in, null));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  // Children with the things the pre-scan has to get right: braces in quoted
+  // strings and text, CRLF line breaks and elements without a body. The
+  // child 10 from the end is replaced by the given one, if any.
+  private static String document(int children, String replaced) {
+    StringBuilder builder = new StringBuilder("root(version=1) {\r\n");
+
+    for (int i = 0; i < children; i++) {
+      if (replaced != null && i == children - 10) {
+        builder.append(replaced).append('\n');
+        continue;
+      }
+
+      builder.append("  item(id=\"").append(i).append("\" label='{x}' raw=a{b}) {\r\n");
+      builder.append("    Text with 1{ brace, 'quotes\" and (parens)\n");
+      builder.append("    br()\n");
+      builder.append("    name { Item ").append(i).append(" }\r\n");
+      builder.append("  }\n");
+    }
+
+    return builder.append("}\n").toString();
+  }
+}
@@ -48,6 +48,96 @@ class ParserTest {
     System.out.println(buffer);
   }
 
+  @Test
+  void deepNesting() throws InterruptedException {
+    int depth = 100_000;
+    String input = "a{".repeat(depth) + "}".repeat(depth);
+
+    int[] maxDepth = new int[1];
+    Throwable[] failure = new Throwable[1];
+
+    // Small stack, like the worker threads this has to run on
+    Thread thread = new Thread(null, () -> {
+      try {
+        Fxml.parse(CharInput.of(input), new DocumentHandler() {
+          int current = 0;
+
+          @Override
+          public void startElement(String name, Location location) {
+            maxDepth[0] = Math.max(maxDepth[0], ++current);
+          }
+
+          @Override
+          public void attribute(String name, String value, Location location) {
+
+          }
+
+          @Override
+          public void text(String text, Location location) {
+
+          }
+
+          @Override
+          public void endElement(String name, Location location) {
+            current--;
+          }
+        });
+      } catch (Throwable t) {
+        failure[0] = t;
+      }
+    }, "deep-nesting", 128 * 1024);
+
+    thread.start();
+    thread.join();
+
+    assertNull(failure[0]);
+    assertEquals(depth, maxDepth[0]);
+  }
+
+  @Test
+  void maxDepth() throws ParserConfigurationException {
+    String input = "a { b { c { d {} } } }";
+    ParserListener listener = new DefaultListener(input, null);
+    Parser parser = new Parser(new TokenStream(input, listener), listener, Fxml.getDocumentBuilder());
+    parser.setMaxDepth(3);
+
+    RuntimeException exc = assertThrows(RuntimeException.class, parser::parse);
+    assertTrue(exc.getMessage().contains("max nesting depth of 3"));
+  }
+
+  // Each '}' closes one body, the next sibling is lexed as a tag again
+  @Test
+  void siblingBodies() throws ParserConfigurationException {
+    assertEquals(
+        "<root>\n  <a>\n    x\n  </a>\n  <b>\n    y\n  </b>\n  <c />\n</root>",
+        outline("root {a {x} b {y} c {}}")
+    );
+  }
+
+  @Test
+  void bodyAfterArguments() throws ParserConfigurationException {
+    assertEquals(
+        "<root>\n  <a k=\"v\">\n    <b />\n  </a>\n  <c />\n</root>",
+        outline("root {a(k=v)  {b {}} c {}}")
+    );
+  }
+
+  // Without a body the tag's scope ends with its arguments, even when the
+  // enclosing body closes right after
+  @Test
+  void argumentsWithoutBody() throws ParserConfigurationException {
+    assertEquals(
+        "<root>\n  <x>\n    <a k=\"v\" />\n  </x>\n  <b k=\"w\" />\n</root>",
+        outline("root {x {a(k=v)} b(k=w)}")
+    );
+  }
+
+  private String outline(String input) throws ParserConfigurationException {
+    StringBuffer buffer = new StringBuffer();
+    append(Fxml.parseDocument(input).getDocumentElement(), buffer, 0);
+    return buffer.toString();
+  }
+
   public void append(Node node, StringBuffer buffer, int indent) {
     Objects.requireNonNull(node);
 
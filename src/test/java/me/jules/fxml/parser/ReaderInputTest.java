@@ -0,0 +1,139 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.CorpusGenerator;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+
+class ReaderInputTest {
+
+  static final int[] WINDOWS = {1, 16, 64, 1024, ReaderInput.DEFAULT_WINDOW};
+
+  static final String HANDWRITTEN = """
+      root(id="quoted \\"value\\" with \\u0041 escapes" plain=value) {\r
+        text before child(a='single' b="double") {\r
+          child body text {}\r
+        }\r
+        \r
+        "quoted text with \\" escape"\r
+        empty(x=) last
+      }\r
+      """;
+
+  @Test
+  void matchesStringInput() {
+    List<String> inputs = new ArrayList<>();
+    inputs.add(HANDWRITTEN);
+
+    // Tokens larger than the smaller windows
+    inputs.add("root(long='" + "q".repeat(5000) + "') {" + "word".repeat(3000) + "}");
+
+    for (int seed = 0; seed < 3; seed++) {
+      String doc = new CorpusGenerator(seed).size(64 * 1024).textRatio(seed * 0.4).generate();
+      inputs.add(doc.replace("\n", "\r\n"));
+    }
+
+    for (String input : inputs) {
+      List<String> expected = events(CharInput.of(input));
+
+      for (int window : WINDOWS) {
+        ReaderInput in = new ReaderInput(new ChunkedReader(input), window);
+        assertEquals(expected, events(in), "Window " + window);
+      }
+    }
+  }
+
+  @Test
+  void windowStaysBounded() {
+    String input = new CorpusGenerator(5).size(256 * 1024).generate();
+    ReaderInput in = new ReaderInput(new ChunkedReader(input), 64);
+
+    events(in);
+
+    // Only grows to fit the longest token and the lexer's scan ahead,
+    // released chars are dropped
+    assertTrue(in.capacity() <= 4 * BodyScanner.SCAN_CHUNK, "Window grew to " + in.capacity());
+  }
+
+  @Test
+  void releasedCharsReadAsEof() {
+    ReaderInput in = new ReaderInput(new StringReader("abcdefgh"), 2);
+
+    assertEquals('a', in.charAt(0));
+    assertEquals('h', in.charAt(7));
+    assertEquals("abcdefgh", in.substring(0, 8));
+
+    in.release(4);
+    in.charAt(8);
+
+    assertEquals('e', in.charAt(4));
+    assertEquals(CharInput.EOF, in.charAt(8));
+  }
+
+  // Every token the parser reads with its full location, line breaks are
+  // the easiest thing to get wrong at a window boundary
+  static List<String> events(CharInput input) {
+    DefaultListener listener = new DefaultListener(input, null);
+    List<String> events = new ArrayList<>();
+
+    Parser parser = new Parser(new TokenStream(input, listener), listener, documentBuilder()) {
+      @Override
+      public Token next() {
+        Token token = super.next();
+        Location start = token.start();
+
+        events.add(token + " @" + start.index() + "/" + start.line() + ":" + start.column());
+        return token;
+      }
+    };
+
+    parser.parse();
+    return events;
+  }
+
+  static DocumentBuilder documentBuilder() {
+    try {
+      return Fxml.getDocumentBuilder();
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // Hands out the text a few chars at a time, so tokens, escapes and CRLF
+  // pairs get split between reads
+  static class ChunkedReader extends Reader {
+
+    private final String text;
+    private int position = 0;
+    private int reads = 0;
+
+    ChunkedReader(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public int read(char[] buf, int off, int len) {
+      if (position >= text.length()) {
+        return -1;
+      }
+
+      int n = Math.min(Math.min(len, 1 + reads++ % 13), text.length() - position);
+      text.getChars(position, position + n, buf, off);
+      position += n;
+
+      return n;
+    }
+
+    @Override
+    public void close() {
+
+    }
+  }
+}
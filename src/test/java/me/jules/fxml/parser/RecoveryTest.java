@@ -0,0 +1,160 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+class RecoveryTest {
+
+  @Test
+  void reportsEveryError() throws ParserConfigurationException {
+    String input = "root {a(=x) {one} b(y {two} c}";
+    List<Diagnostic> list = new ArrayList<>();
+
+    assertEquals("root{a{one}b(y){two} c}", parse(input, list));
+    assertEquals(2, list.size());
+
+    assertEquals(Diagnostic.Severity.ERROR, list.get(0).severity());
+    assertEquals(Diagnostic.Severity.ERROR, list.get(1).severity());
+    assertEquals(input.indexOf('='), list.get(0).offset());
+    assertEquals(input.indexOf("{two"), list.get(1).offset());
+  }
+
+  @Test
+  void closesUnclosedElements() throws ParserConfigurationException {
+    String input = "root {a {b {text";
+    List<Diagnostic> list = new ArrayList<>();
+
+    assertEquals("root{a{b{text}}}", parse(input, list));
+    assertEquals(1, list.size());
+  }
+
+  @Test
+  void skipsTextBeforeRoot() throws ParserConfigurationException {
+    String input = "text root(x=) {}";
+    List<Diagnostic> list = new ArrayList<>();
+
+    assertEquals("root(x)", parse(input, list));
+    assertEquals(0, list.get(0).offset());
+  }
+
+  @Test
+  void maxDepthStopsParsing() {
+    FxmlParser parser = FxmlParser.builder().maxDepth(2).build();
+    List<Diagnostic> list = parser.validate(CharInput.of("root {a {b {}} c(=) {}}"));
+
+    // Nothing after the element that's too deep is looked at
+    assertEquals(1, list.size());
+    assertTrue(list.get(0).message().contains("'b'"), list.get(0).message());
+  }
+
+  @Test
+  void validInputHasNoDiagnostics() {
+    for (String input : FxmlParserTest.INPUTS) {
+      assertTrue(Fxml.parser().validate(CharInput.of(input)).isEmpty(), input);
+    }
+  }
+
+  @Test
+  void renderMatchesThrownError() {
+    String input = "root {\n  a(b c=) {}\n  d(\"\\q\")}";
+    List<Diagnostic> list = FxmlParser.builder()
+        .sourceName("test.fxml")
+        .build()
+        .validate(CharInput.of(input));
+
+    assertEquals(1, list.size());
+
+    RuntimeException exc = assertThrows(
+        RuntimeException.class,
+        () -> FxmlParser.builder().sourceName("test.fxml").build().parseDocument(input)
+    );
+
+    assertEquals(exc.getMessage(), list.get(0).render());
+    assertEquals("ERROR test.fxml:2:6: Invalid escape sequence", list.get(0).toString());
+  }
+
+  // Returned diagnostics carry their source line instead of the input
+  @Test
+  void detachedRendersLikeAttached() throws ParserConfigurationException {
+    String input = "root {\n  a(=x) {}\r\n  b(c=\"\\q\") {}\n  d(e=";
+    CharInput in = CharInput.of(input);
+    DiagnosticCollector diagnostics = new DiagnosticCollector(in, "test.fxml");
+
+    Parser parser = new Parser(new TokenStream(in, diagnostics), diagnostics);
+    parser.setRecoverErrors(true);
+    parser.parse(new DomBuilder(Fxml.getDocumentBuilder().newDocument()));
+
+    List<Diagnostic> attached = diagnostics.getDiagnostics();
+    assertEquals(4, attached.size());
+
+    for (Diagnostic diagnostic : attached) {
+      Diagnostic detached = diagnostic.detach();
+
+      assertEquals(diagnostic.render(), detached.render());
+      assertEquals(diagnostic.toString(), detached.toString());
+      assertEquals(diagnostic.location(), detached.location());
+    }
+  }
+
+  @Test
+  void warningsGoToSink() {
+    List<Diagnostic> warnings = new ArrayList<>();
+    CharInput input = CharInput.of("root {}");
+
+    Parser parser = new Parser(
+        new TokenStream(input, new DefaultListener(input, null)),
+        new DefaultListener(input, "test.fxml", warnings::add)
+    );
+
+    parser.warn(new Location(0, 5, 5), "Odd %s", "brace");
+
+    assertEquals(1, warnings.size());
+    assertEquals(Diagnostic.Severity.WARNING, warnings.get(0).severity());
+    assertEquals("Odd brace", warnings.get(0).message());
+    assertTrue(warnings.get(0).render().contains("test.fxml:0:5"), warnings.get(0).render());
+  }
+
+  // A streaming input that has dropped the start of the line shows no
+  // snippet rather than part of it
+  @Test
+  void droppedLineRendersEmpty() throws ParserConfigurationException {
+    String input = "root {\n" + "a {} ".repeat(1000) + "b(=x) {}\n}";
+    ReaderInput in = new ReaderInput(new ReaderInputTest.ChunkedReader(input), 16);
+    List<String> rendered = new ArrayList<>();
+
+    // Rendered as soon as it's reported, while the error is still buffered
+    DiagnosticCollector diagnostics = new DiagnosticCollector(in, "test.fxml") {
+      @Override
+      public void error(Location location, String format, Object... args) {
+        super.error(location, format, args);
+        rendered.add(getDiagnostics().get(0).render());
+      }
+    };
+
+    Parser parser = new Parser(new TokenStream(in, diagnostics), diagnostics);
+    parser.setRecoverErrors(true);
+    parser.parse(new DomBuilder(Fxml.getDocumentBuilder().newDocument()));
+
+    assertEquals(1, rendered.size());
+    assertEquals("1 |", rendered.get(0).split("\n")[3], rendered.get(0));
+  }
+
+  static String parse(String input, List<Diagnostic> diagnostics)
+      throws ParserConfigurationException
+  {
+    DomBuilder dom = new DomBuilder(Fxml.getDocumentBuilder().newDocument());
+    diagnostics.addAll(Fxml.parser().parseRecovering(CharInput.of(input), dom));
+
+    Document doc = dom.getDocument();
+    StringBuilder out = new StringBuilder();
+    new FxmlWriter(out, false).write(doc);
+
+    return out.toString();
+  }
+}
@@ -0,0 +1,104 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SymbolTableTest {
+
+  @Test
+  void repeatedSpansShareInstance() {
+    CharInput in = CharInput.of("class nav-item class nav-item");
+    SymbolTable table = new SymbolTable();
+
+    String first = table.intern(in, 0, 5);
+    String second = table.intern(in, 15, 20);
+
+    assertEquals("class", first);
+    assertSame(first, second);
+    assertEquals(table.internId(in, 6, 14), table.internId(in, 21, 29));
+    assertEquals(2, table.size());
+  }
+
+  @Test
+  void namesAreInterned() {
+    CharInput in = CharInput.of("a { div(class=\"x\") {} div(class=\"x\") {} }");
+    TokenStream stream = new TokenStream(in, new DefaultListener(in, null));
+
+    Token[] divs = new Token[2];
+    Token[] names = new Token[2];
+    Token[] values = new Token[2];
+    int found = 0;
+
+    while (true) {
+      stream.skipWhitespace();
+      Token t = stream.next();
+
+      if (t.type() == TokenType.EOF) {
+        break;
+      }
+
+      if (t.type() == TokenType.TAG_NAME && t.input().equals("div")) {
+        divs[found] = t;
+      } else if (t.type() == TokenType.IDENTIFIER) {
+        names[found] = t;
+      } else if (t.type() == TokenType.QUOTED_STRING) {
+        values[found++] = t;
+      }
+    }
+
+    assertEquals(2, found);
+    assertSame(divs[0].input(), divs[1].input());
+    assertSame(names[0].input(), names[1].input());
+    assertEquals("x", values[0].input());
+    assertNotSame(values[0].input(), values[1].input());
+  }
+
+  @Test
+  void valuesDontFillTable() {
+    StringBuilder b = new StringBuilder("root {");
+
+    for (int i = 0; i < 100; i++) {
+      b.append(" a(id=v").append(i).append(" title=\"t").append(i).append("\")");
+    }
+
+    b.append(" }");
+
+    CharInput in = CharInput.of(b.toString());
+    SymbolTable table = new SymbolTable();
+    TokenStream stream = new TokenStream(in, new DefaultListener(in, null), table);
+
+    while (true) {
+      stream.skipWhitespace();
+
+      if (stream.next().type() == TokenType.EOF) {
+        break;
+      }
+    }
+
+    // root, a, id and title
+    assertEquals(4, table.size());
+  }
+
+  @Test
+  void sharedTableAcrossParsers() {
+    SharedSymbolTable shared = new SharedSymbolTable(16);
+    CharInput in = CharInput.of("option");
+
+    String a = new SymbolTable(shared).intern(in, 0, 6);
+    String b = new SymbolTable(shared).intern(in, 0, 6);
+
+    assertSame(a, b);
+  }
+
+  @Test
+  void fullTableStillReturnsValues() {
+    CharInput in = CharInput.of("ab");
+    SymbolTable table = new SymbolTable(1, null);
+
+    assertEquals("a", table.intern(in, 0, 1));
+    assertEquals("b", table.intern(in, 1, 2));
+    assertEquals(-1, table.internId(in, 1, 2));
+    assertEquals(1, table.size());
+  }
+}
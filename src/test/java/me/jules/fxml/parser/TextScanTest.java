@@ -0,0 +1,49 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TextScanTest {
+
+  static final String STOPS = "{(}\n\r\"'\\";
+
+  @Test
+  void usesVectorsWhenModulePresent() {
+    boolean present = ModuleLayer.boot().findModule(TextScan.VECTOR_MODULE).isPresent();
+    boolean enabled = Boolean.parseBoolean(System.getProperty(TextScan.VECTOR_PROPERTY, "true"));
+
+    assertEquals(present && enabled, TextScan.VECTORIZED);
+  }
+
+  // Whichever scan TextScan picked has to agree with the scalar loops, at
+  // every alignment and with stops anywhere in a vector
+  @Test
+  void matchesScalarScan() {
+    Random random = new Random(42);
+
+    for (int round = 0; round < 200; round++) {
+      char[] chars = new char[random.nextInt(300)];
+
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = random.nextInt(40) == 0
+            ? STOPS.charAt(random.nextInt(STOPS.length()))
+            : (char) ('a' + random.nextInt(26));
+      }
+
+      for (int from = 0; from < Math.min(chars.length, 40); from++) {
+        int to = from + random.nextInt(chars.length - from + 1);
+
+        assertEquals(
+            TextScan.scanTextScalar(chars, from, to),
+            TextScan.scanText(chars, from, to)
+        );
+        assertEquals(
+            TextScan.scanQuotedScalar(chars, '"', from, to),
+            TextScan.scanQuoted(chars, '"', from, to)
+        );
+      }
+    }
+  }
+}
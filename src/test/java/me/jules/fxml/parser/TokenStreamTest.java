@@ -0,0 +1,163 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+class TokenStreamTest {
+
+  static final int SIZE = 200_000;
+
+  // Upper bound for input reads per input char, any rescanning lookahead
+  // blows way past this on the inputs below
+  static final int MAX_READS_PER_CHAR = 8;
+
+  @Test
+  void longName() throws ParserConfigurationException {
+    String text = "x".repeat(SIZE);
+    assertLinear("a{" + text + "}", text);
+  }
+
+  @Test
+  void longWhitespace() throws ParserConfigurationException {
+    String text = "word" + " ".repeat(SIZE) + "word";
+    assertLinear("a{" + text + "}", text);
+  }
+
+  @Test
+  void nameCharsAndWhitespace() throws ParserConfigurationException {
+    String text = "ab-c.d ".repeat(SIZE / 7);
+    assertLinear("a{" + text + "}", text);
+  }
+
+  @Test
+  void nameCharsBeforeTag() throws ParserConfigurationException {
+    String text = "word ".repeat(SIZE / 5);
+    Document doc = assertLinear("a{" + text + "b{c}}", text);
+    assertEquals("b", doc.getDocumentElement().getLastChild().getNodeName());
+  }
+
+  @Test
+  void primitiveTokens() {
+    String input = "a(k='v\\'') {text}";
+    TokenStream stream = new TokenStream(input, new DefaultListener(input, null));
+
+    assertEquals(TokenType.TAG_NAME.ordinal(), stream.nextToken());
+    assertEquals("a", stream.tokenText().toString());
+
+    assertEquals(TokenType.ARGUMENTS_START.ordinal(), stream.nextToken());
+    assertEquals(1, stream.tokenStart());
+    assertEquals(2, stream.tokenEnd());
+    assertEquals("", stream.tokenText().toString());
+    assertNull(stream.tokenString());
+
+    assertEquals(TokenType.IDENTIFIER.ordinal(), stream.nextToken());
+    assertEquals(TokenType.EQUALS.ordinal(), stream.nextToken());
+
+    assertEquals(TokenType.QUOTED_STRING.ordinal(), stream.nextToken());
+    assertEquals("v'", stream.tokenText().toString());
+    assertEquals(4, stream.tokenStart());
+    assertEquals(9, stream.tokenEnd());
+
+    assertEquals(TokenType.ARGUMENTS_END.ordinal(), stream.nextToken());
+    stream.skipWhitespace();
+    assertEquals(TokenType.SQUIGGLY_OPEN.ordinal(), stream.nextToken());
+
+    assertEquals(TokenType.SEQUENCE.ordinal(), stream.nextToken());
+    assertEquals("text", stream.tokenText().toString());
+    assertEquals(0, stream.tokenLine());
+    assertEquals(12, stream.tokenColumn());
+
+    assertEquals(TokenType.SQUIGGLY_CLOSE.ordinal(), stream.nextToken());
+    assertEquals(TokenType.EOF.ordinal(), stream.nextToken());
+  }
+
+  @Test
+  void locationsFromLineIndex() {
+    String input = "a {\r\n  b {}\n\r\nc}";
+    TokenStream stream = new TokenStream(input, new DefaultListener(input, null));
+
+    int[][] expected = {
+        {0, 0}, {0, 2}, {1, 3}, {1, 5}, {1, 6}, {3, 1}, {3, 2}, {3, 2}
+    };
+
+    for (int[] pos : expected) {
+      stream.skipWhitespace();
+      stream.nextToken();
+
+      Location location = stream.tokenLocation();
+      assertEquals(pos[0], location.line(), location.toString());
+      assertEquals(pos[1], location.column(), location.toString());
+    }
+
+    assertEquals(TokenType.EOF.ordinal(), stream.tokenType());
+  }
+
+  // Words running across the end of a text scan, some of them tag names,
+  // have to lex the same as without bulk scanning
+  @Test
+  void wordsAcrossScanChunks() {
+    Random random = new Random(7);
+    StringBuilder builder = new StringBuilder("root {");
+
+    while (builder.length() < 16 * BodyScanner.SCAN_CHUNK) {
+      builder.append("w".repeat(1 + random.nextInt(3 * BodyScanner.SCAN_CHUNK)));
+
+      switch (random.nextInt(5)) {
+        case 0 -> builder.append(" {x}");
+        case 1 -> builder.append("(k=v)");
+        case 2 -> builder.append("\r\n");
+        default -> builder.append(' ');
+      }
+    }
+
+    char[] chars = builder.append('}').toString().toCharArray();
+
+    assertEquals(
+        ReaderInputTest.events(new CountingInput(CharInput.of(chars))),
+        ReaderInputTest.events(CharInput.of(chars))
+    );
+  }
+
+  private static Document assertLinear(String input, String expectedText)
+      throws ParserConfigurationException
+  {
+    CountingInput counting = new CountingInput(CharInput.of(input));
+    Document doc = Fxml.parseDocument(counting);
+
+    assertEquals(expectedText, doc.getDocumentElement().getFirstChild().getTextContent());
+
+    long maxReads = (long) input.length() * MAX_READS_PER_CHAR;
+    assertTrue(
+        counting.reads <= maxReads,
+        () -> "Expected at most " + maxReads + " reads, found " + counting.reads
+    );
+
+    return doc;
+  }
+
+  static class CountingInput implements CharInput {
+
+    private final CharInput delegate;
+    long reads = 0;
+
+    CountingInput(CharInput delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int charAt(int index) {
+      reads++;
+      return delegate.charAt(index);
+    }
+
+    @Override
+    public String substring(int start, int end) {
+      return delegate.substring(start, end);
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class Utf8InputTest {
+
+  // 2, 3 and 4 byte sequences: e with acute, euro sign, G clef
+  static final String MIXED = "a\u00e9\u20ac\ud834\udd1eb";
+
+  @Test
+  void decodesSequences() {
+    CharInput in = utf8(MIXED.getBytes(StandardCharsets.UTF_8));
+
+    int[] expected = MIXED.codePoints().toArray();
+    int[] widths = {1, 2, 3, 4, 1};
+    int index = 0;
+
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], in.charAt(index), "Code point " + i);
+      assertEquals(index + widths[i], in.next(index), "Code point " + i);
+      index = in.next(index);
+    }
+
+    assertEquals(CharInput.EOF, in.charAt(index));
+    assertEquals(MIXED, in.substring(0, index));
+    assertEquals("\u20ac", in.substring(3, 6));
+    assertFalse(in.isCharIndexed());
+  }
+
+  @Test
+  void skipsByteOrderMark() {
+    CharInput in = utf8(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a'});
+
+    assertEquals('a', in.charAt(0));
+    assertEquals("a", in.substring(0, 10));
+  }
+
+  @Test
+  void malformedBytes() {
+    byte[] bytes = {
+        (byte) 0x80,              // Lone continuation byte
+        'a',
+        (byte) 0xE2, '}',         // Lead byte without its continuation bytes
+        (byte) 0xF0, (byte) 0x9D, // Truncated at the end of input
+    };
+    CharInput in = utf8(bytes);
+
+    assertEquals(Utf8Input.REPLACEMENT, in.charAt(0));
+    assertEquals(1, in.next(0));
+    assertEquals('a', in.charAt(1));
+
+    // The brace after a broken sequence must not be skipped
+    assertEquals(Utf8Input.REPLACEMENT, in.charAt(2));
+    assertEquals(3, in.next(2));
+    assertEquals('}', in.charAt(3));
+
+    assertEquals(Utf8Input.REPLACEMENT, in.charAt(4));
+    assertEquals(6, in.next(4));
+  }
+
+  @Test
+  void rejectsOverlongEncodings() {
+    // '/' as 2, 3 and 4 bytes, and U+07FF as 3 bytes
+    byte[][] overlong = {
+        {(byte) 0xC0, (byte) 0xAF},
+        {(byte) 0xE0, (byte) 0x80, (byte) 0xAF},
+        {(byte) 0xF0, (byte) 0x80, (byte) 0x80, (byte) 0xAF},
+        {(byte) 0xE0, (byte) 0x9F, (byte) 0xBF},
+    };
+
+    for (byte[] bytes : overlong) {
+      assertDecodesLikeString(bytes);
+      assertFalse(decode(bytes).contains("/"));
+    }
+  }
+
+  @Test
+  void rejectsEncodedSurrogates() {
+    // U+D800, U+DFFF and a surrogate pair encoded one half at a time
+    byte[][] surrogates = {
+        {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+        {(byte) 0xED, (byte) 0xBF, (byte) 0xBF},
+        {(byte) 0xED, (byte) 0xA0, (byte) 0xB4, (byte) 0xED, (byte) 0xB4, (byte) 0x9E},
+    };
+
+    for (byte[] bytes : surrogates) {
+      assertDecodesLikeString(bytes);
+      assertTrue(decode(bytes).chars().noneMatch(ch -> Character.isSurrogate((char) ch)));
+    }
+
+    // The last char before the surrogates and the first code point after
+    assertDecodesLikeString(new byte[] {(byte) 0xED, (byte) 0x9F, (byte) 0xBF});
+    assertDecodesLikeString(new byte[] {(byte) 0xF4, (byte) 0x8F, (byte) 0xBF, (byte) 0xBF});
+    assertDecodesLikeString(new byte[] {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80});
+  }
+
+  @Test
+  void malformedBytesParseLikeDecodedString() {
+    byte[] bytes = {'r', '{', 'x', (byte) 0xE2, '}', ' ', 'y', (byte) 0x80, ' ', 'c', '{', '}', '}'};
+
+    assertEquals(events(CharInput.of(new String(bytes, StandardCharsets.UTF_8))), events(utf8(bytes)));
+  }
+
+  @Test
+  void locationsMatchStringInput() {
+    String doc = "root(a='" + MIXED + "') {\n  " + MIXED + " child(b=" + MIXED + ") {" + MIXED + "}\n}";
+
+    assertEquals(events(CharInput.of(doc)), events(utf8(doc.getBytes(StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  void errorColumnMatchesStringInput() {
+    String doc = "root {\n  " + MIXED + MIXED + " child(=) {}\n}";
+
+    RuntimeException expected = assertThrows(RuntimeException.class, () -> events(CharInput.of(doc)));
+    RuntimeException actual = assertThrows(
+        RuntimeException.class,
+        () -> events(utf8(doc.getBytes(StandardCharsets.UTF_8)))
+    );
+
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  // Same code points, and the same replacements, as the JDK's decoder
+  static void assertDecodesLikeString(byte[] bytes) {
+    String expected = new String(bytes, StandardCharsets.UTF_8);
+    assertEquals(expected, decode(bytes));
+  }
+
+  // Every code point read through charAt() and next()
+  static String decode(byte[] bytes) {
+    CharInput in = utf8(bytes);
+    StringBuilder out = new StringBuilder();
+
+    for (int i = 0; in.charAt(i) != CharInput.EOF; i = in.next(i)) {
+      out.appendCodePoint(in.charAt(i));
+    }
+
+    return out.toString();
+  }
+
+  // Columns of tokens in order on one long line are counted on from the
+  // previous one, not from the start of the line each time
+  @Test
+  void columnsOnLongLineAreLinear() {
+    String doc = "root {" + "item(name='\u00e9t\u00e9') {\u20ac} ".repeat(20_000) + "}";
+    byte[] bytes = doc.getBytes(StandardCharsets.UTF_8);
+    CountingUtf8 in = new CountingUtf8(utf8(bytes));
+
+    List<String> events = events(in);
+    assertEquals("} @0:" + (doc.length() - 1), events.get(events.size() - 1));
+
+    assertTrue(in.reads < 16L * bytes.length, "Read " + in.reads + " chars");
+  }
+
+  static CharInput utf8(byte[] bytes) {
+    return CharInput.ofUtf8(ByteBuffer.wrap(bytes));
+  }
+
+  // Tokens with their line and column, indices differ between the inputs
+  static List<String> events(CharInput input) {
+    DefaultListener listener = new DefaultListener(input, null);
+    List<String> events = new ArrayList<>();
+
+    Parser parser = new Parser(new TokenStream(input, listener), listener, ReaderInputTest.documentBuilder()) {
+      @Override
+      public Token next() {
+        Token token = super.next();
+
+        events.add(token + " @" + token.start().line() + ":" + token.start().column());
+        return token;
+      }
+    };
+
+    parser.parse();
+    return events;
+  }
+
+  static class CountingUtf8 extends TokenStreamTest.CountingInput {
+
+    private final CharInput delegate;
+
+    CountingUtf8(CharInput delegate) {
+      super(delegate);
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int next(int index) {
+      return delegate.next(index);
+    }
+
+    @Override
+    public boolean isCharIndexed() {
+      return delegate.isCharIndexed();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package me.jules.fxml.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+class XmlWriterTest {
+
+  static final String INPUT = """
+      root(title="<a & b>" quote='"' dup=1 dup=2) {
+        text & <markup>
+        empty()
+        nested(line="one\\ntwo") {deeper {\uD83D\uDE00}}
+      }
+      """;
+
+  @Test
+  void transcode() throws IOException, SAXException, ParserConfigurationException {
+    StringWriter out = new StringWriter();
+    XmlWriter.transcode(CharInput.of(INPUT), out);
+
+    String xml = out.toString();
+    assertTrue(xml.contains("<empty/>"), xml);
+
+    Document expected = Fxml.parseDocument(INPUT);
+    Document parsed = Fxml.getDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+
+    assertTrue(expected.getDocumentElement().isEqualNode(parsed.getDocumentElement()), xml);
+  }
+
+  @Test
+  void rejectsNonXml() {
+    StringWriter out = new StringWriter();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> XmlWriter.transcode(CharInput.of("$root {}"), out)
+    );
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> XmlWriter.transcode(CharInput.of("root(\"a b\"=1)"), out)
+    );
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> XmlWriter.transcode(CharInput.of("root(a='\\u0001')"), out)
+    );
+  }
+}
@@ -0,0 +1,196 @@
+package me.jules.fxml.sax;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+class FxmlXmlReaderTest {
+
+  static final String[] INPUTS = {
+      "root(a=1 b='two') {text child {more}}",
+      "other {\r\n  \"quoted \\u0041\" inner(x=y) tail}",
+      "root {deep {deeper {deepest {}}}}",
+      "root(xmlns:fx='urn:fx') {fx:item(fx:id=a) {}}",
+  };
+
+  @Test
+  void identityTransformMatchesDom() throws Exception {
+    for (String input : INPUTS) {
+      SAXSource source = new SAXSource(new FxmlXmlReader(), new InputSource(new StringReader(input)));
+      DOMSource dom = new DOMSource(Fxml.parseDocument(input));
+
+      assertEquals(transform(dom), transform(source), input);
+    }
+  }
+
+  @Test
+  void parsesSystemId() throws Exception {
+    Path file = Files.createTempFile("fxml", ".fxml");
+
+    try {
+      Files.writeString(file, INPUTS[0]);
+
+      SAXSource source = new SAXSource(new FxmlXmlReader(), new InputSource(file.toUri().toString()));
+      assertEquals(transform(new DOMSource(Fxml.parseDocument(INPUTS[0]))), transform(source));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void resolvesNamespaces() throws IOException, SAXException {
+    String input = "root(xmlns='urn:a' xmlns:b='urn:b') {b:child(b:x=1 y=2) {} other {}}";
+    List<String> events = new ArrayList<>();
+
+    FxmlXmlReader reader = new FxmlXmlReader();
+    reader.setContentHandler(new DefaultHandler() {
+      @Override
+      public void startPrefixMapping(String prefix, String uri) {
+        events.add("map " + prefix + "=" + uri);
+      }
+
+      @Override
+      public void startElement(String uri, String localName, String qName, Attributes attrs) {
+        StringBuilder event = new StringBuilder("start {" + uri + "}" + localName + " " + qName);
+
+        for (int i = 0; i < attrs.getLength(); i++) {
+          event.append(" {").append(attrs.getURI(i)).append('}').append(attrs.getLocalName(i));
+        }
+
+        events.add(event.toString());
+      }
+
+      @Override
+      public void endElement(String uri, String localName, String qName) {
+        events.add("end {" + uri + "}" + localName);
+      }
+
+      @Override
+      public void endPrefixMapping(String prefix) {
+        events.add("unmap " + prefix);
+      }
+    });
+
+    reader.parse(new InputSource(new StringReader(input)));
+
+    assertEquals(
+        List.of(
+            "map =urn:a",
+            "map b=urn:b",
+            "start {urn:a}root root",
+            "start {urn:b}child b:child {urn:b}x {}y",
+            "end {urn:b}child",
+            "start {urn:a}other other",
+            "end {urn:a}other",
+            "end {urn:a}root",
+            "unmap ",
+            "unmap b"
+        ).toString(),
+        sorted(events).toString()
+    );
+
+    // Names are passed on as they are without namespace processing
+    events.clear();
+    reader.setFeature(FxmlXmlReader.FEATURE_NAMESPACES, false);
+    reader.parse(new InputSource(new StringReader(input)));
+
+    assertTrue(events.contains("start {}b:child b:child {}b:x {}y"), events.toString());
+  }
+
+  @Test
+  void undeclaredPrefixIsFatal() {
+    FxmlXmlReader reader = new FxmlXmlReader();
+    reader.setContentHandler(new DefaultHandler());
+
+    SAXParseException exc = assertThrows(
+        SAXParseException.class,
+        () -> reader.parse(new InputSource(new StringReader("root {\n  x:child {}}")))
+    );
+
+    assertEquals(2, exc.getLineNumber());
+  }
+
+  @Test
+  void handlerExceptionPropagates() {
+    SAXException thrown = new SAXException("Stop");
+
+    FxmlXmlReader reader = new FxmlXmlReader();
+    reader.setContentHandler(new DefaultHandler() {
+      @Override
+      public void startElement(String uri, String localName, String qName, Attributes attrs)
+          throws SAXException
+      {
+        if (qName.equals("child")) {
+          throw thrown;
+        }
+      }
+    });
+
+    SAXException exc = assertThrows(
+        SAXException.class,
+        () -> reader.parse(new InputSource(new StringReader(INPUTS[0])))
+    );
+
+    assertSame(thrown, exc);
+  }
+
+  @Test
+  void parseErrorGoesToErrorHandler() {
+    List<SAXParseException> errors = new ArrayList<>();
+
+    FxmlXmlReader reader = new FxmlXmlReader();
+    reader.setErrorHandler(new DefaultHandler() {
+      @Override
+      public void fatalError(SAXParseException exc) {
+        errors.add(exc);
+      }
+    });
+
+    InputSource input = new InputSource(new StringReader("root {\n  a(=b) {}"));
+    input.setSystemId("test.fxml");
+
+    SAXParseException exc = assertThrows(SAXParseException.class, () -> reader.parse(input));
+
+    assertEquals(List.of(exc), errors);
+    assertEquals("test.fxml", exc.getSystemId());
+    assertEquals(2, exc.getLineNumber());
+  }
+
+  static String transform(Source source) throws TransformerException {
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+
+    StringWriter out = new StringWriter();
+    transformer.transform(source, new StreamResult(out));
+    return out.toString();
+  }
+
+  // Prefix mappings may be reported in any order
+  static List<String> sorted(List<String> events) {
+    List<String> list = new ArrayList<>(events);
+    list.subList(0, 2).sort(null);
+    list.subList(list.size() - 2, list.size()).sort(null);
+    return list;
+  }
+}
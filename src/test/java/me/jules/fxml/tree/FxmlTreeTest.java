@@ -0,0 +1,146 @@
+package me.jules.fxml.tree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.ParserConfigurationException;
+import me.jules.fxml.CorpusGenerator;
+import me.jules.fxml.Fxml;
+import me.jules.fxml.parser.CharInput;
+import me.jules.fxml.parser.DocumentHandler;
+import me.jules.fxml.parser.Location;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+class FxmlTreeTest {
+
+  static final String[] INPUTS = {
+      "root(a=1 b='two') {text child {more}}",
+      "other {\r\n  \"quoted \\u0041\" inner(x=y) tail}",
+      "root {deep {deeper {deepest {}}}}",
+      "root(a=1 a=2) {leaf() sibling(x=) {} text {nested {text} tail} end}",
+      "root(only=attributes)",
+  };
+
+  static final int DEEP = 100_000;
+
+  @Test
+  void toDocumentMatchesParser() throws ParserConfigurationException {
+    for (String input : inputs()) {
+      Document expected = Fxml.parseDocument(input);
+      Document actual = Fxml.parseTree(input).toDocument(Fxml.getDocumentBuilder().newDocument());
+
+      assertTrue(expected.isEqualNode(actual), input);
+    }
+  }
+
+  @Test
+  void replayMatchesParser() {
+    for (String input : inputs()) {
+      EventRecorder expected = new EventRecorder();
+      Fxml.parse(CharInput.of(input), expected);
+
+      EventRecorder actual = new EventRecorder();
+      Fxml.parseTree(input).replay(actual);
+
+      assertEquals(expected.events, actual.events, input);
+    }
+  }
+
+  @Test
+  void keepsLineAndColumn() {
+    FxmlTree tree = Fxml.parseTree("root {\r\n  a(x=1) {text}\n}");
+    int a = tree.firstChild(tree.root());
+    int text = tree.firstChild(a);
+
+    assertEquals(0, tree.line(tree.root()));
+    assertEquals(0, tree.column(tree.root()));
+    // Lines start at their line break, which is column 0
+    assertEquals(1, tree.line(a));
+    assertEquals(3, tree.column(a));
+    assertEquals(1, tree.line(text));
+    assertEquals(11, tree.column(text));
+  }
+
+  // Both walk the tree without recursion, a deep tree mustn't overflow the
+  // stack. isEqualNode() would, so the DOM is checked by hand.
+  @Test
+  void deepTree() throws ParserConfigurationException {
+    String input = "d {".repeat(DEEP) + "bottom" + "}".repeat(DEEP) + " ";
+    FxmlTree tree = Fxml.parseTree(input);
+
+    EventRecorder expected = new EventRecorder();
+    Fxml.parse(CharInput.of(input), expected);
+
+    EventRecorder actual = new EventRecorder();
+    tree.replay(actual);
+
+    assertEquals(expected.events, actual.events);
+
+    Document doc = tree.toDocument(Fxml.getDocumentBuilder().newDocument());
+    Node node = doc.getDocumentElement();
+    int depth = 1;
+
+    while (node.getFirstChild().getNodeType() == Node.ELEMENT_NODE) {
+      assertEquals(1, node.getChildNodes().getLength());
+      node = node.getFirstChild();
+      depth++;
+    }
+
+    assertEquals(DEEP, depth);
+    assertEquals("bottom", node.getTextContent());
+  }
+
+  static List<String> inputs() {
+    List<String> inputs = new ArrayList<>(List.of(INPUTS));
+
+    for (int seed = 0; seed < 4; seed++) {
+      inputs.add(new CorpusGenerator(seed).size(16 * 1024).maxAttributes(seed).generate());
+    }
+
+    return inputs;
+  }
+
+  // The tree keeps where elements, attributes and text start, element ends
+  // aren't retained
+  static class EventRecorder implements DocumentHandler {
+
+    final List<String> events = new ArrayList<>();
+
+    @Override
+    public void startDocument() {
+      events.add("start document");
+    }
+
+    @Override
+    public void startElement(String name, Location location) {
+      events.add("start " + name + " @" + at(location));
+    }
+
+    @Override
+    public void attribute(String name, String value, Location location) {
+      events.add("attr " + name + "=" + value + " @" + at(location));
+    }
+
+    @Override
+    public void text(String text, Location location) {
+      events.add("text " + text + " @" + at(location));
+    }
+
+    @Override
+    public void endElement(String name, Location location) {
+      events.add("end " + name);
+    }
+
+    @Override
+    public void endDocument() {
+      events.add("end document");
+    }
+
+    static String at(Location location) {
+      return location.index() + "/" + location.line() + ":" + location.column();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package me.jules.fxml.xml;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import me.jules.fxml.Fxml;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+class XmlToFxmlTest {
+
+  static final String XML = """
+      <?xml version="1.0"?>
+      <!-- dropped -->
+      <p:menu xmlns:p="urn:menu" title='Caf&#233; "Central"' note="line&#10;break&#9;tab">
+        <item id="1" price="3.50">Espresso &amp; more</item>
+        <item id="2"><![CDATA[<Lungo>]]></item>
+        <empty/>
+        <mixed>Hello <b>world</b> again</mixed>
+      </p:menu>
+      """;
+
+  @Test
+  void sameAsXmlParser() throws Exception {
+    for (boolean pretty : new boolean[] {true, false}) {
+      String fxml = convert(XML, pretty);
+
+      Document expected = parseXml(XML);
+      Document converted = Fxml.parseDocument(fxml);
+
+      assertTrue(expected.getDocumentElement().isEqualNode(converted.getDocumentElement()), fxml);
+    }
+  }
+
+  @Test
+  void quotesValues() throws XMLStreamException {
+    String fxml = convert("<a plain=\"x.y\" spaced=\"a b\" esc=\"q&quot;\\&#13;&#x7F;A\"/>", false);
+    assertEquals("a(plain=x.y spaced=\"a b\" esc=\"q\\\"\\\\\\r\\u007f\\u0041\")", fxml);
+  }
+
+  @Test
+  void convertAllInParallel() throws IOException, InterruptedException, XMLStreamException {
+    Path dir = Files.createTempDirectory("xml-to-fxml");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      List<Path> sources = new ArrayList<>();
+
+      for (int i = 0; i < 20; i++) {
+        Path source = dir.resolve("file" + i + ".xml");
+        Files.writeString(source, i == 7 ? "<a>text}</a>" : XML);
+        sources.add(source);
+      }
+
+      List<XmlToFxml.Result> results = new XmlToFxml(true).convertAll(
+          sources,
+          source -> source.resolveSibling(source.getFileName() + ".fexml"),
+          executor
+      );
+
+      for (int i = 0; i < results.size(); i++) {
+        XmlToFxml.Result result = results.get(i);
+        assertEquals(sources.get(i), result.source());
+
+        if (i == 7) {
+          assertTrue(result.failure() instanceof IllegalArgumentException, String.valueOf(result.failure()));
+          assertFalse(Files.exists(result.target()));
+        } else {
+          assertTrue(result.succeeded(), String.valueOf(result.failure()));
+          assertEquals(convert(XML, true), Files.readString(result.target()));
+        }
+      }
+    } finally {
+      executor.shutdown();
+
+      try (var files = Files.list(dir)) {
+        for (Path file : files.toList()) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(dir);
+    }
+  }
+
+  private static String convert(String xml, boolean pretty) throws XMLStreamException {
+    StringBuilder out = new StringBuilder();
+    new XmlToFxml(pretty).convert(new StringReader(xml), out);
+    return out.toString();
+  }
+
+  // Parses like the converter reads, without comments, CDATA sections or
+  // whitespace only text
+  private static Document parseXml(String xml)
+      throws ParserConfigurationException, IOException, SAXException
+  {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setCoalescing(true);
+    factory.setIgnoringComments(true);
+
+    Document doc = factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    removeBlankText(doc.getDocumentElement());
+
+    return doc;
+  }
+
+  private static void removeBlankText(Node node) {
+    Node child = node.getFirstChild();
+
+    while (child != null) {
+      Node next = child.getNextSibling();
+
+      if (child.getNodeType() == Node.TEXT_NODE && child.getNodeValue().isBlank()) {
+        node.removeChild(child);
+      } else {
+        removeBlankText(child);
+      }
+
+      child = next;
+    }
+  }
+}
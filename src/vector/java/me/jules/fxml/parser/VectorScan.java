@@ -0,0 +1,59 @@
+package me.jules.fxml.parser;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+// Only loaded through TextScan, which falls back to scalar loops if this
+// class can't be linked. Lives in its own source set, the only one compiled
+// with the incubator module, and is packaged with the main classes.
+final class VectorScan {
+
+  static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+  static final int LANES = SPECIES.length();
+
+  private VectorScan() {
+    throw new UnsupportedOperationException();
+  }
+
+  static int scanText(char[] chars, int from, int to) {
+    int i = from;
+    int bound = from + SPECIES.loopBound(to - from);
+
+    for (; i < bound; i += LANES) {
+      ShortVector v = ShortVector.fromCharArray(SPECIES, chars, i);
+
+      VectorMask<Short> stops = v.eq((short) '{')
+          .or(v.eq((short) '('))
+          .or(v.eq((short) '}'))
+          .or(v.eq((short) '\n'))
+          .or(v.eq((short) '\r'));
+
+      if (stops.anyTrue()) {
+        return i + stops.firstTrue();
+      }
+    }
+
+    return TextScan.scanTextScalar(chars, i, to);
+  }
+
+  static int scanQuoted(char[] chars, int quote, int from, int to) {
+    int i = from;
+    int bound = from + SPECIES.loopBound(to - from);
+
+    for (; i < bound; i += LANES) {
+      ShortVector v = ShortVector.fromCharArray(SPECIES, chars, i);
+
+      VectorMask<Short> stops = v.eq((short) quote)
+          .or(v.eq((short) '\\'))
+          .or(v.eq((short) '\n'))
+          .or(v.eq((short) '\r'));
+
+      if (stops.anyTrue()) {
+        return i + stops.firstTrue();
+      }
+    }
+
+    return TextScan.scanQuotedScalar(chars, quote, i, to);
+  }
+}